@@ -0,0 +1,29 @@
+package com.example.SimpleCRUDAPI.benchmark;
+
+import com.example.SimpleCRUDAPI.util.JwtUtil;
+
+import java.lang.reflect.Field;
+
+// Builds the application components used by the benchmarks without starting a
+// Spring context, so every benchmark measures only the code under test.
+final class BenchmarkSupport {
+
+    static final String SECRET = "benchmark-secret-key-that-is-long-enough-for-hs256";
+
+    private BenchmarkSupport() {
+    }
+
+    // JwtUtil reads its secret from @Value, so it is set here the way Spring would.
+    static JwtUtil jwtUtil() {
+        try {
+            JwtUtil jwtUtil = new JwtUtil();
+            Field secret = JwtUtil.class.getDeclaredField("secret");
+            secret.setAccessible(true);
+            secret.set(jwtUtil, SECRET);
+            jwtUtil.init();
+            return jwtUtil;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
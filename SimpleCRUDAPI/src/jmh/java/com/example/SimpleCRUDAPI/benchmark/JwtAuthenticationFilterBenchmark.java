@@ -0,0 +1,63 @@
+package com.example.SimpleCRUDAPI.benchmark;
+
+import com.example.SimpleCRUDAPI.filter.JwtAuthenticationFilter;
+import com.example.SimpleCRUDAPI.service.TokenRevocationService;
+import com.example.SimpleCRUDAPI.util.JwtTokenCache;
+import com.example.SimpleCRUDAPI.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+// The JWT filter that every request goes through, with a valid token, an
+// invalid token and no Authorization header at all. The mock request is
+// created inside the benchmark because the filter marks each request it has
+// already seen.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"valid", "invalid", "missing"})
+    public String header;
+
+    private JwtAuthenticationFilter filter;
+
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = BenchmarkSupport.jwtUtil();
+        // No token is revoked, so every check misses the Bloom filter and the
+        // repository (null here) is never used.
+        filter = new JwtAuthenticationFilter(new JwtTokenCache(jwtUtil, new SimpleMeterRegistry(), 10_000),
+                new TokenRevocationService(null, () -> Health.up().build(), new SimpleMeterRegistry(), 100_000, 0.01, 30_000, false));
+        authorization = switch (header) {
+            case "valid" -> "Bearer " + jwtUtil.createToken("benchmark-user");
+            case "invalid" -> "Bearer not.a.valid-token";
+            default -> null;
+        };
+    }
+
+    @Benchmark
+    public Object doFilter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users");
+        if (authorization != null) {
+            request.addHeader("Authorization", authorization);
+        }
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.SimpleCRUDAPI.benchmark;
+
+import com.example.SimpleCRUDAPI.util.JwtTokenCache;
+import com.example.SimpleCRUDAPI.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Token creation on /login and token validation on every authenticated request.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+
+    private JwtTokenCache jwtTokenCache;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = BenchmarkSupport.jwtUtil();
+        jwtTokenCache = new JwtTokenCache(jwtUtil, new SimpleMeterRegistry(), 10_000);
+        token = jwtUtil.createToken("benchmark-user");
+    }
+
+    @Benchmark
+    public String createToken() {
+        return jwtUtil.createToken("benchmark-user");
+    }
+
+    // Full validation: base64 decoding, JSON parsing and the HMAC check.
+    @Benchmark
+    public String validateToken() {
+        return jwtUtil.validateToken(token);
+    }
+
+    // Validation of a token that is already in the cache, as seen by repeat requests.
+    @Benchmark
+    public String validateTokenCached() {
+        return jwtTokenCache.validateToken(token);
+    }
+}
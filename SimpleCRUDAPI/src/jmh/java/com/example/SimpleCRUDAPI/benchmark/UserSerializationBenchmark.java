@@ -0,0 +1,60 @@
+package com.example.SimpleCRUDAPI.benchmark;
+
+import com.example.SimpleCRUDAPI.dto.UserView;
+import com.example.SimpleCRUDAPI.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Jackson serialization of a List<User> response body at 1k, 100k and 1M rows,
+// next to the List<UserView> projection the read endpoints return now.
+// The ObjectMapper is built with the same builder Spring Boot uses, and the
+// output is discarded so only serialization is measured.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class UserSerializationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private ObjectMapper objectMapper;
+
+    private List<User> users;
+
+    private List<UserView> views;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        users = new ArrayList<>(rows);
+        views = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            User user = new User();
+            user.setId(i);
+            user.setUsername("user" + i);
+            // A real BCrypt hash is always 60 characters long.
+            user.setPassword("$2a$10$abcdefghijklmnopqrstuvABCDEFGHIJKLMNOPQRSTUVWXYZ01234");
+            users.add(user);
+            views.add(new UserView((long) i, user.getUsername(), 0L));
+        }
+    }
+
+    @Benchmark
+    public void serializeUsers() throws Exception {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), users);
+    }
+
+    @Benchmark
+    public void serializeUserViews() throws Exception {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), views);
+    }
+}
@@ -0,0 +1,310 @@
+package com.example.SimpleCRUDAPI.loadtest;
+
+import com.example.SimpleCRUDAPI.SimpleCrudapiApplication;
+import com.example.SimpleCRUDAPI.entity.User;
+import com.example.SimpleCRUDAPI.repository.UserRepository;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// The LoadTest class measures the end-to-end throughput and latency of the
+// UserController endpoints. It starts the whole application (by default on an
+// embedded H2 database in PostgreSQL mode, so no network or database server is
+// needed), seeds users, then drives a weighted mix of login, list, get-by-id,
+// update and delete requests from a fixed number of client threads over
+// loopback HTTP.
+//
+// Settings are passed as command-line arguments and read from the Spring
+// Environment; any application property can be passed the same way, e.g.
+// --spring.threads.virtual.enabled=true, to compare configurations:
+//   --loadtest.users=10000           users seeded for reads and updates
+//   --loadtest.concurrency=32        client threads
+//   --loadtest.warmup-seconds=10     traffic that is not measured
+//   --loadtest.duration-seconds=60   measured traffic
+//   --loadtest.mix=login=5,list=20,get=55,update=15,delete=5
+//   --loadtest.output-dir=target/loadtest
+//   --loadtest.database=external     use the configured spring.datasource instead of H2
+//
+// The startup time and the latency of the first login and of the first
+// authenticated read are printed before the traffic starts; pass
+// --warmup.enabled=false to compare them without the startup warmup.
+public final class LoadTest {
+
+    private static final String PASSWORD = "loadtest-password";
+
+    private enum Endpoint { LOGIN, LIST, GET, UPDATE, DELETE }
+
+    private final ConfigurableApplicationContext context;
+
+    private final Environment environment;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+
+    private String baseUrl;
+
+    private String token;
+
+    private List<Long> userIds;
+
+    private List<String> usernames;
+
+    // Users created only to be deleted, so deletes never hit the users that the other requests read.
+    private final ConcurrentLinkedQueue<Long> deletableIds = new ConcurrentLinkedQueue<>();
+
+    private final long startupMillis;
+
+    private LoadTest(ConfigurableApplicationContext context, long startupMillis) {
+        this.context = context;
+        this.startupMillis = startupMillis;
+        this.environment = context.getEnvironment();
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (!Arrays.asList(args).contains("--loadtest.database=external")) {
+            useEmbeddedDatabase();
+        }
+        System.setProperty("server.port", "0");
+        System.setProperty("management.server.port", "0");
+        // Every virtual user logs in from 127.0.0.1, so the /login limits would turn the mix into 429s.
+        System.setProperty("rate-limit.enabled", "false");
+        long start = System.nanoTime();
+        ConfigurableApplicationContext context = SpringApplication.run(SimpleCrudapiApplication.class, args);
+        long startupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        try {
+            new LoadTest(context, startupMillis).run();
+        } finally {
+            context.close();
+        }
+    }
+
+    // System properties take precedence over application.properties; command-line arguments still win over both.
+    private static void useEmbeddedDatabase() {
+        System.setProperty("spring.datasource.url",
+                "jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1");
+        System.setProperty("spring.datasource.driver-class-name", "org.h2.Driver");
+        System.setProperty("spring.datasource.username", "sa");
+        System.setProperty("spring.datasource.password", "");
+        System.setProperty("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        System.setProperty("spring.jpa.hibernate.ddl-auto", "create");
+        System.setProperty("migrations.mode", "skip");
+    }
+
+    private void run() throws Exception {
+        int users = environment.getProperty("loadtest.users", Integer.class, 10_000);
+        int concurrency = environment.getProperty("loadtest.concurrency", Integer.class, 32);
+        int warmupSeconds = environment.getProperty("loadtest.warmup-seconds", Integer.class, 10);
+        int durationSeconds = environment.getProperty("loadtest.duration-seconds", Integer.class, 60);
+        Map<Endpoint, Integer> mix = parseMix(environment.getProperty("loadtest.mix",
+                "login=5,list=20,get=55,update=15,delete=5"));
+        Path outputDir = Path.of(environment.getProperty("loadtest.output-dir", "target/loadtest"));
+
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        seed(users);
+        long loginStart = System.nanoTime();
+        token = login(usernames.get(0));
+        long firstLoginMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - loginStart);
+        long readStart = System.nanoTime();
+        client.send(request(Endpoint.GET, ThreadLocalRandom.current()), HttpResponse.BodyHandlers.discarding());
+        long firstReadMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - readStart);
+        System.out.printf("Started in %d ms (warmup.enabled=%s); first login %.2f ms, first read %.2f ms%n",
+                startupMillis, environment.getProperty("warmup.enabled", "true"),
+                firstLoginMicros / 1000.0, firstReadMicros / 1000.0);
+
+        Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+
+        System.out.printf("Running %d s warmup + %d s measurement with %d client threads against %s%n",
+                warmupSeconds, durationSeconds, concurrency, baseUrl);
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long endAt = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            clients.submit(() -> drive(mix, stats, measureFrom, endAt));
+        }
+        clients.shutdown();
+        clients.awaitTermination(warmupSeconds + durationSeconds + 60, TimeUnit.SECONDS);
+
+        report(stats, durationSeconds, outputDir);
+    }
+
+    // Inserts the users directly through the repository. All of them share one
+    // password hash, so seeding does not spend minutes in BCrypt.
+    private void seed(int count) {
+        String encodedPassword = context.getBean(BCryptPasswordEncoder.class).encode(PASSWORD);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+        int deletable = Math.max(100, count / 10);
+
+        // The embedded database is created by Hibernate, not by the migrations, so the change feed sequence is added here.
+        context.getBean(JdbcTemplate.class).execute("CREATE SEQUENCE IF NOT EXISTS user_changes_seq");
+
+        userIds = new ArrayList<>(count);
+        usernames = new ArrayList<>(count);
+        for (int start = 0; start < count + deletable; start += 1000) {
+            List<User> chunk = new ArrayList<>();
+            for (int i = start; i < Math.min(start + 1000, count + deletable); i++) {
+                User user = new User();
+                user.setUsername("loadtest-" + runId + "-" + i);
+                user.setPassword(encodedPassword);
+                chunk.add(user);
+            }
+            transactionTemplate.executeWithoutResult(status -> userRepository.saveAll(chunk));
+            for (User user : chunk) {
+                if (userIds.size() < count) {
+                    userIds.add(user.getId());
+                    usernames.add(user.getUsername());
+                } else {
+                    deletableIds.add(user.getId());
+                }
+            }
+        }
+        System.out.printf("Seeded %d users (+%d to delete)%n", count, deletable);
+    }
+
+    private String login(String username) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(loginRequest(username), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed: " + response.statusCode() + " " + response.body());
+        }
+        return response.body();
+    }
+
+    private void drive(Map<Endpoint, Integer> mix, Map<Endpoint, EndpointStats> stats, long measureFrom, long endAt) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        while (System.nanoTime() < endAt) {
+            Endpoint endpoint = pick(mix, random.nextInt(totalWeight));
+            HttpRequest request = request(endpoint, random);
+            if (request == null) {
+                // Nothing left to delete; read a user instead.
+                endpoint = Endpoint.GET;
+                request = request(endpoint, random);
+            }
+            long start = System.nanoTime();
+            int status;
+            try {
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long finished = System.nanoTime();
+            if (start >= measureFrom) {
+                stats.get(endpoint).record(TimeUnit.NANOSECONDS.toMicros(finished - start), status);
+            }
+        }
+    }
+
+    private HttpRequest request(Endpoint endpoint, ThreadLocalRandom random) {
+        int index = random.nextInt(userIds.size());
+        long id = userIds.get(index);
+        return switch (endpoint) {
+            case LOGIN -> loginRequest(usernames.get(index));
+            case LIST -> authorized("/users?after=" + id + "&limit=50").GET().build();
+            case GET -> authorized("/users/" + id).GET().build();
+            // A username-only update with the current name: exercises the UPDATE path without hashing.
+            case UPDATE -> authorized("/users/" + id).header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString("{\"username\":\"" + usernames.get(index) + "\"}"))
+                    .build();
+            case DELETE -> {
+                Long deletableId = deletableIds.poll();
+                yield deletableId == null ? null : authorized("/users/" + deletableId).DELETE().build();
+            }
+        };
+    }
+
+    private HttpRequest loginRequest(String username) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .build();
+    }
+
+    private HttpRequest.Builder authorized(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).header("Authorization", token);
+    }
+
+    private static Endpoint pick(Map<Endpoint, Integer> mix, int roll) {
+        for (Map.Entry<Endpoint, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty traffic mix");
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String part : mix.split(",")) {
+            String[] entry = part.trim().split("=");
+            int weight = Integer.parseInt(entry[1].trim());
+            if (weight > 0) {
+                weights.put(Endpoint.valueOf(entry[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix has no endpoint with a positive weight");
+        }
+        return weights;
+    }
+
+    // Prints one summary line per endpoint and writes the full HdrHistogram
+    // percentile distribution of each endpoint (in milliseconds) to the output directory.
+    private static void report(Map<Endpoint, EndpointStats> stats, int durationSeconds, Path outputDir)
+            throws IOException {
+        Files.createDirectories(outputDir);
+        System.out.printf("%n%-8s %10s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<Endpoint, EndpointStats> entry : stats.entrySet()) {
+            var histogram = entry.getValue().histogram();
+            long requests = histogram.getTotalCount();
+            if (requests == 0) {
+                continue;
+            }
+            System.out.printf("%-8s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    entry.getKey().name().toLowerCase(), requests, entry.getValue().errors(),
+                    (double) requests / durationSeconds,
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0);
+            Path file = outputDir.resolve(entry.getKey().name().toLowerCase() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        System.out.printf("%nHistograms written to %s%n", outputDir.toAbsolutePath());
+    }
+}
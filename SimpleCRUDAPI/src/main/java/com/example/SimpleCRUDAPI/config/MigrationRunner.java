@@ -0,0 +1,170 @@
+package com.example.SimpleCRUDAPI.config;
+
+import org.bereketab.MigrationService;
+import org.bereketab.commands.MigrateCommand;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// The MigrationRunner class runs the Migration_Tool migrations on the DataSource
+// that Spring already manages, so no second connection pool is opened.
+//
+// It runs while the Spring context is being created, which is before the web
+// server starts accepting requests. Three modes are supported:
+//  - blocking:   migrate before the application starts (the default)
+//  - background: migrate on a separate thread; the readiness probe stays
+//                OUT_OF_SERVICE until the migrations are done
+//  - skip:       do not migrate at all
+//
+// The migration scan can be skipped when the schema is already current. This
+// fast path is off unless migrations.applied-version-query is set: a query that
+// reads the version Migration_Tool has applied from its own history table. That
+// version is compared with the highest version among the migration files, and
+// the scan is skipped when they are equal. A migration or rollback run directly
+// with Migration_Tool changes the applied version, so it is always noticed.
+@Component("migrations")
+public class MigrationRunner implements InitializingBean, HealthIndicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(MigrationRunner.class);
+
+    private enum Mode { BLOCKING, BACKGROUND, SKIP }
+
+    // A migration file, not a rollback: V<version>__<name>.sql
+    private static final Pattern MIGRATION_FILE = Pattern.compile("V(\\d+)__(?!.*_rollback\\.sql$).*\\.sql");
+
+    private final DataSource dataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Mode mode;
+
+    private final String migrationsDir;
+
+    // Blank when the fast path is off.
+    private final String appliedVersionQuery;
+
+    // Reported by the "migrations" health indicator, which is part of the readiness group.
+    private volatile Health health = Health.unknown().build();
+
+    private volatile long migrationMillis;
+
+    public MigrationRunner(DataSource dataSource,
+            @Value("${migrations.mode:blocking}") String mode,
+            @Value("${migrations.dir:src/main/resources/migrations}") String migrationsDir,
+            @Value("${migrations.applied-version-query:}") String appliedVersionQuery) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.mode = Mode.valueOf(mode.trim().toUpperCase());
+        this.migrationsDir = migrationsDir;
+        this.appliedVersionQuery = appliedVersionQuery;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        switch (mode) {
+            case SKIP -> {
+                logger.info("Migrations skipped (migrations.mode=skip)");
+                health = Health.up().withDetail("mode", "skip").build();
+            }
+            case BLOCKING -> migrate();
+            case BACKGROUND -> {
+                health = Health.outOfService().withDetail("mode", "background").build();
+                Thread thread = new Thread(() -> {
+                    try {
+                        migrate();
+                    } catch (RuntimeException e) {
+                        logger.error("Background migration failed", e);
+                    }
+                }, "migrations");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+    }
+
+    private void migrate() {
+        long start = System.nanoTime();
+        try {
+            Long latestVersion = latestVersion();
+            Long appliedVersion = appliedVersionQuery.isBlank() ? null : appliedVersion();
+            if (latestVersion != null && latestVersion.equals(appliedVersion)) {
+                logger.info("Schema is at version {}, migration scan skipped (check took {} ms)",
+                        appliedVersion, millisSince(start));
+                health = Health.up().withDetail("version", appliedVersion).withDetail("skipped", true).build();
+                return;
+            }
+            logger.info("Schema is at version {}, migration files go up to {}, running migrate (check took {} ms)",
+                    appliedVersion != null ? appliedVersion : "unknown", latestVersion, millisSince(start));
+
+            long migrateStart = System.nanoTime();
+            MigrationService migrationService = new MigrationService(dataSource);
+            migrationService.setMigrationsDir(migrationsDir);
+            new MigrateCommand(migrationService).run();
+            logger.info("Migration completed in {} ms", millisSince(migrateStart));
+            health = Health.up().withDetail("version", latestVersion).withDetail("skipped", false).build();
+        } catch (Exception e) {
+            health = Health.down(e).build();
+            throw new IllegalStateException("Database migration failed", e);
+        } finally {
+            migrationMillis = millisSince(start);
+            logger.info("Migration step finished in {} ms", migrationMillis);
+        }
+    }
+
+    // The highest version among the migration files (V<version>__<name>.sql), or null if there are none.
+    private Long latestVersion() throws IOException {
+        try (Stream<Path> paths = Files.list(Path.of(migrationsDir))) {
+            return paths.map(path -> MIGRATION_FILE.matcher(path.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Long.parseLong(matcher.group(1)))
+                    .max(Long::compare)
+                    .orElse(null);
+        }
+    }
+
+    // The version Migration_Tool has applied, or null if it cannot be read, e.g.
+    // because nothing has been migrated yet. A null version never matches, so
+    // the migration runs.
+    private Long appliedVersion() {
+        try {
+            String version = jdbcTemplate.queryForObject(appliedVersionQuery, String.class);
+            return version != null ? Long.parseLong(version.replaceAll("\\D", "")) : null;
+        } catch (DataAccessException | NumberFormatException e) {
+            logger.debug("Could not read the applied schema version: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public Health health() {
+        return health;
+    }
+
+    // Logs how long the application took to become ready, so time-to-ready can be tracked.
+    @EventListener(ApplicationReadyEvent.class)
+    public void logTimeToReady(ApplicationReadyEvent event) {
+        logger.info("Application ready in {} ms (migrations: mode={}, {} ms)",
+                event.getTimeTaken().toMillis(), mode.name().toLowerCase(), migrationMillis);
+    }
+
+    private static long millisSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.SimpleCRUDAPI.config;
+
+import com.example.SimpleCRUDAPI.util.ReadReplicas;
+import com.example.SimpleCRUDAPI.util.ReadWriteRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// The ReadReplicaConfig class is only active when datasource.replicas.urls is
+// set. It replaces the DataSource Spring Boot would create with two kinds of
+// pools: the primary, configured by the usual spring.datasource.* properties,
+// and one pool per read replica. The "dataSource" bean that JPA uses routes
+// read-only transactions to the replicas (see ReadWriteRoutingDataSource).
+//
+// Every pool is published as its own set of hikaricp.* meters, tagged with the
+// pool name: "primary", "replica-1", "replica-2", ...
+@Configuration
+@ConditionalOnProperty("datasource.replicas.urls")
+public class ReadReplicaConfig {
+
+    // The primary pool, built the same way Spring Boot builds its default one, so
+    // spring.datasource.hikari.* still applies to it. Spring Boot publishes its
+    // metrics because it is a bean.
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    // The replica pools are not beans, so their metrics tracker is set here. They
+    // open their connections in the background, so the application starts even
+    // while a replica is down.
+    @Bean(destroyMethod = "close")
+    public ReadReplicas readReplicas(DataSourceProperties properties, MeterRegistry meterRegistry,
+            @Value("${datasource.replicas.urls}") List<String> urls,
+            @Value("${datasource.replicas.username:${spring.datasource.username}}") String username,
+            @Value("${datasource.replicas.password:${spring.datasource.password}}") String password,
+            @Value("${datasource.replicas.pool-size:10}") int poolSize,
+            @Value("${datasource.replicas.connection-timeout-ms:1000}") long connectionTimeoutMillis,
+            @Value("${datasource.replicas.health-check-interval-ms:5000}") long healthCheckIntervalMillis,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (String url : urls) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + (pools.size() + 1));
+            pool.setJdbcUrl(url.trim());
+            pool.setUsername(username);
+            pool.setPassword(password);
+            pool.setDriverClassName(properties.determineDriverClassName());
+            pool.setMaximumPoolSize(poolSize);
+            pool.setConnectionTimeout(connectionTimeoutMillis);
+            pool.setInitializationFailTimeout(-1);
+            pool.setReadOnly(true);
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            pools.add(pool);
+        }
+        return new ReadReplicas(pools, Duration.ofMillis(healthCheckIntervalMillis), meterRegistry,
+                virtualThreads);
+    }
+
+    // The DataSource used by JPA and everything else. The lazy proxy is required
+    // by the routing DataSource, see its comment.
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReadReplicas readReplicas,
+            MeterRegistry meterRegistry,
+            @Value("${datasource.replicas.sticky-window-ms:2000}") long stickyWindowMillis) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primaryDataSource, readReplicas,
+                Duration.ofMillis(stickyWindowMillis), meterRegistry));
+    }
+}
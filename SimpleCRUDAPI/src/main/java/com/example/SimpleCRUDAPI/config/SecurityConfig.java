@@ -1,13 +1,21 @@
 package com.example.SimpleCRUDAPI.config;
 
 import com.example.SimpleCRUDAPI.filter.JwtAuthenticationFilter;
+import com.example.SimpleCRUDAPI.filter.RateLimitFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.AuthenticatedAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Configuration
@@ -15,23 +23,52 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter) {
+    private final RateLimitFilter rateLimitFilter;
+
+    private final Environment environment;
+
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter, RateLimitFilter rateLimitFilter,
+            Environment environment) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.rateLimitFilter = rateLimitFilter;
+        this.environment = environment;
     }
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         return http
                 .csrf(csrf -> csrf.disable()) // Disable CSRF for stateless APIs
+                .logout(logout -> logout.disable()) // POST /logout is handled by UserController, which revokes the token
                 .authorizeHttpRequests(auth -> auth
+                // Endpoints returning a CompletableFuture write their response in a second, ASYNC dispatch of the
+                // same request. The JWT filter only runs once per request, so that dispatch carries no
+                // authentication; the request was already authorized when it was first dispatched.
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/register", "/login").permitAll() // Allow authentication endpoints
+                // The actuator endpoints are only served on management.server.port, which is not public.
+                .requestMatchers("/actuator/health/**").permitAll() // Allow liveness and readiness probes
+                .requestMatchers("/actuator/prometheus").permitAll() // Allow the Prometheus scraper
+                .requestMatchers(HttpMethod.DELETE, "/actuator/**").access(onManagementPort()) // Resetting statistics, e.g. DELETE /actuator/sqlstats
                 .anyRequest().authenticated() // Protect all other endpoints
                 )
+                .addFilterBefore(rateLimitFilter, UsernamePasswordAuthenticationFilter.class) // Turn away clients over their /login and /register limits before any hashing
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class) // Add our custom JWT filter before the default filter
                 // .build is used to build the SecurityFilterChain. By building means it will create the SecurityFilterChain instance. it's like calling the constructor of the SecurityFilterChain class. it is like recursion. it will call the constructor of the SecurityFilterChain class and return the instance of the SecurityFilterChain class which is used to build the SecurityFilterChain. 
                 .build();
     }
 
+    // Grants authenticated requests that arrived on the separate management port. local.management.port is
+    // only set when the actuator has its own port, so without one these requests are always denied.
+    private AuthorizationManager<RequestAuthorizationContext> onManagementPort() {
+        AuthenticatedAuthorizationManager<RequestAuthorizationContext> authenticated =
+                AuthenticatedAuthorizationManager.authenticated();
+        return (authentication, context) -> {
+            Integer managementPort = environment.getProperty("local.management.port", Integer.class);
+            boolean onManagementPort = managementPort != null && context.getRequest().getLocalPort() == managementPort;
+            return new AuthorizationDecision(onManagementPort && authenticated.authorize(authentication, context).isGranted());
+        };
+    }
+
     // if there is no @Bean annotation, the method will not be registered as a bean in the Spring application context. The method will be executed but the return value will not be registered as a bean. which means you can't autowire the return value of the method in other classes.
     @Bean
     // we need passwordEncoder bean to encode the password before saving it to the database.
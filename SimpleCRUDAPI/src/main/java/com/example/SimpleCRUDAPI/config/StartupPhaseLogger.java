@@ -0,0 +1,62 @@
+package com.example.SimpleCRUDAPI.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.boot.context.event.ApplicationPreparedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.context.event.ApplicationStartingEvent;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// The StartupPhaseLogger class logs how long each phase of the startup takes:
+//  - jvm:         from the JVM start until Spring Boot starts (class loading, main)
+//  - environment: reading the properties and profiles
+//  - context:     creating the application context and loading the bean definitions
+//  - refresh:     creating the beans and starting the web server; a blocking
+//                 migration runs in this phase
+//  - runners:     the ApplicationRunners and the readiness listeners, which
+//                 include the startup warmup
+//
+// Some of these events are published before any bean exists, so the class is
+// registered in META-INF/spring.factories instead of being a @Component.
+public class StartupPhaseLogger implements ApplicationListener<ApplicationEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupPhaseLogger.class);
+
+    // Logging is only set up once the environment is prepared, so the phases
+    // are collected here and logged together when the application is ready.
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+
+    private long phaseStart;
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (event instanceof ApplicationStartingEvent) {
+            phaseStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+            endPhase("jvm");
+        } else if (event instanceof ApplicationEnvironmentPreparedEvent) {
+            endPhase("environment");
+        } else if (event instanceof ApplicationPreparedEvent) {
+            endPhase("context");
+        } else if (event instanceof ApplicationStartedEvent) {
+            endPhase("refresh");
+        } else if (event instanceof ApplicationReadyEvent ready) {
+            endPhase("runners");
+            phases.forEach((phase, millis) -> logger.info("Startup phase {} took {} ms", phase, millis));
+            logger.info("Startup took {} ms since the JVM started ({} ms in Spring Boot)",
+                    phases.values().stream().mapToLong(Long::longValue).sum(), ready.getTimeTaken().toMillis());
+        }
+    }
+
+    private void endPhase(String phase) {
+        long now = System.currentTimeMillis();
+        phases.put(phase, now - phaseStart);
+        phaseStart = now;
+    }
+}
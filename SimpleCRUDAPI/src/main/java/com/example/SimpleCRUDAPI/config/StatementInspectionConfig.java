@@ -0,0 +1,75 @@
+package com.example.SimpleCRUDAPI.config;
+
+import com.example.SimpleCRUDAPI.util.StatementInspectionDataSource;
+import com.example.SimpleCRUDAPI.util.StatementStatistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+// The StatementInspectionConfig class puts StatementInspectionDataSource in
+// front of the application DataSource and publishes the per-statement
+// statistics on the /actuator/sqlstats endpoint (DELETE resets them). Like every
+// actuator endpoint it is only served on the management port, and SecurityConfig
+// only accepts the DELETE there.
+@Configuration
+public class StatementInspectionConfig {
+
+    @Bean
+    public StatementStatistics statementStatistics(
+            @Value("${sql.inspection.slow-threshold-ms:200}") long slowThresholdMillis,
+            @Value("${sql.inspection.sample-rate:0.0}") double sampleRate,
+            @Value("${sql.inspection.max-shapes:500}") int maxShapes,
+            @Value("${sql.inspection.shape-cache-size:2000}") int shapeCacheSize) {
+        return new StatementStatistics(slowThresholdMillis, sampleRate, maxShapes, shapeCacheSize);
+    }
+
+    // Static because BeanPostProcessors are created before the other beans. Only
+    // the bean named "dataSource" (the one JPA uses) is wrapped, so a statement is
+    // never timed twice.
+    @Bean
+    public static BeanPostProcessor statementInspectionPostProcessor(ObjectProvider<StatementStatistics> statistics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && beanName.equals("dataSource")) {
+                    return new StatementInspectionDataSource(dataSource, statistics.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public SqlStatsEndpoint sqlStatsEndpoint(StatementStatistics statistics) {
+        return new SqlStatsEndpoint(statistics);
+    }
+
+    @Endpoint(id = "sqlstats")
+    public static class SqlStatsEndpoint {
+
+        private final StatementStatistics statistics;
+
+        public SqlStatsEndpoint(StatementStatistics statistics) {
+            this.statistics = statistics;
+        }
+
+        @ReadOperation
+        public List<Map<String, Object>> statements() {
+            return statistics.snapshot();
+        }
+
+        @DeleteOperation
+        public void reset() {
+            statistics.reset();
+        }
+    }
+}
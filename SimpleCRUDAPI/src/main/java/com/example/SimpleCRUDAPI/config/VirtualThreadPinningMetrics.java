@@ -0,0 +1,62 @@
+package com.example.SimpleCRUDAPI.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+// The VirtualThreadPinningMetrics class reports when a virtual thread stays
+// pinned to its carrier (platform) thread while blocking, for example inside a
+// synchronized block. A pinned virtual thread blocks the carrier, so pinning
+// under load takes away the throughput gain of virtual threads.
+//
+// The events come from JDK Flight Recorder, streamed in-process:
+//  - jvm.threads.virtual.pinned          timer, one sample per pinning longer than the threshold
+//  - jvm.threads.virtual.submit.failed   counter, virtual threads that could not be started or unparked
+// The stack of each pinning event is logged at DEBUG level to find its cause.
+public class VirtualThreadPinningMetrics implements MeterBinder, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMetrics.class);
+
+    private final Duration threshold;
+
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMetrics(long thresholdMillis) {
+        this.threshold = Duration.ofMillis(thresholdMillis);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Timer pinned = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Time virtual threads were pinned to their carrier thread while blocking")
+                .register(registry);
+        Counter submitFailed = Counter.builder("jvm.threads.virtual.submit.failed")
+                .description("Virtual threads that could not be started or unparked")
+                .register(registry);
+
+        recordingStream = new RecordingStream();
+        recordingStream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        recordingStream.enable("jdk.VirtualThreadSubmitFailed");
+        recordingStream.onEvent("jdk.VirtualThreadPinned", event -> {
+            pinned.record(event.getDuration());
+            if (logger.isDebugEnabled()) {
+                logger.debug("Virtual thread pinned for {} ms: {}", event.getDuration().toMillis(), event.getStackTrace());
+            }
+        });
+        recordingStream.onEvent("jdk.VirtualThreadSubmitFailed", event -> submitFailed.increment());
+        recordingStream.startAsync();
+    }
+
+    @Override
+    public void close() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+}
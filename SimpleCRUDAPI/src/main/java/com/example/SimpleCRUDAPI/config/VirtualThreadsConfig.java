@@ -0,0 +1,62 @@
+package com.example.SimpleCRUDAPI.config;
+
+import com.example.SimpleCRUDAPI.util.ReadReplicas;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+// The VirtualThreadsConfig class is only active when spring.threads.virtual.enabled=true.
+// In that mode Spring Boot runs Tomcat requests and the application task executor
+// on virtual threads, so the number of concurrent requests is no longer capped
+// by a thread pool. The database is now the limit, so the connection pool is
+// sized for what PostgreSQL can handle: extra virtual threads wait in Hikari's
+// queue for a connection instead of opening more connections. The read replica
+// pools get the same fixed size, but keep their short connection timeout so
+// reads still fall back to the primary quickly.
+//
+// The background executors (change feed, token revocations, replica health
+// checks) pick virtual threads themselves, see ThreadFactories. The work that
+// continues after a password hash runs on the application task executor, which
+// Spring Boot already switches to virtual threads; nothing here uses @Async.
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadsConfig {
+
+    // Static because BeanPostProcessors are created before the other beans.
+    // It runs after Spring Boot has bound the spring.datasource.hikari.* properties.
+    @Bean
+    public static BeanPostProcessor virtualThreadHikariTuning(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                int poolSize = environment.getProperty("virtual-threads.datasource.pool-size", Integer.class, 20);
+                if (bean instanceof ReadReplicas readReplicas) {
+                    // These pools may already be running; Hikari accepts size changes at runtime.
+                    for (HikariDataSource replica : readReplicas.pools()) {
+                        replica.setMaximumPoolSize(poolSize);
+                        replica.setMinimumIdle(poolSize);
+                    }
+                }
+                if (bean instanceof HikariDataSource dataSource) {
+                    // A fixed-size pool: every connection is opened up front and kept.
+                    dataSource.setMaximumPoolSize(poolSize);
+                    dataSource.setMinimumIdle(poolSize);
+                    // How long a virtual thread may wait in the queue for a connection.
+                    dataSource.setConnectionTimeout(environment.getProperty(
+                            "virtual-threads.datasource.connection-timeout-ms", Long.class, 30_000L));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public VirtualThreadPinningMetrics virtualThreadPinningMetrics(Environment environment) {
+        return new VirtualThreadPinningMetrics(
+                environment.getProperty("virtual-threads.pinning-threshold-ms", Long.class, 20L));
+    }
+}
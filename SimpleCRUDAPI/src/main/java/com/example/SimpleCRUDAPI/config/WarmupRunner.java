@@ -0,0 +1,166 @@
+package com.example.SimpleCRUDAPI.config;
+
+import com.example.SimpleCRUDAPI.dto.UserView;
+import com.example.SimpleCRUDAPI.entity.User;
+import com.example.SimpleCRUDAPI.service.PasswordHashingService;
+import com.example.SimpleCRUDAPI.util.JwtUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The WarmupRunner class runs the hot request paths before the application
+// takes traffic. Spring Boot only reports the readiness probe as UP once every
+// ApplicationRunner has returned, but the web server is already listening, so
+// the warmup can send real requests to itself. Without it, the first client
+// requests pay for class loading and interpreted code on the JWT, Jackson and
+// BCrypt paths.
+//
+// The warmup has two phases, both stopped at warmup.max-duration-ms:
+//  - in process: create and parse tokens with JwtUtil, and serialize User and
+//    UserView with the application's ObjectMapper, often enough for the JIT
+//    to compile them. One password is hashed and checked on the hashing pool;
+//  - over loopback HTTP: requests to /actuator/health/liveness on the
+//    management port with a new token each, which go through Tomcat, the
+//    security filter chain (JWT validation and the revocation check) and the
+//    JSON writer without touching the database. The management server runs
+//    the same filter chain and the same code as the public one.
+// The latency of the first and the last loopback request is logged: the first
+// one is what the first client request would have cost without the warmup.
+//
+// Set warmup.enabled=false to measure startup and first-request latency without it.
+@Component
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmupRunner.class);
+
+    private static final String USERNAME = "warmup";
+
+    private final ApplicationContext applicationContext;
+
+    private final JwtUtil jwtUtil;
+
+    private final ObjectMapper objectMapper;
+
+    private final PasswordHashingService passwordHashingService;
+
+    private final boolean enabled;
+
+    private final int iterations;
+
+    private final int requests;
+
+    private final long maxDurationMillis;
+
+    public WarmupRunner(ApplicationContext applicationContext, JwtUtil jwtUtil, ObjectMapper objectMapper,
+            PasswordHashingService passwordHashingService,
+            @Value("${warmup.enabled:true}") boolean enabled,
+            @Value("${warmup.iterations:5000}") int iterations,
+            @Value("${warmup.requests:100}") int requests,
+            @Value("${warmup.max-duration-ms:15000}") long maxDurationMillis) {
+        this.applicationContext = applicationContext;
+        this.jwtUtil = jwtUtil;
+        this.objectMapper = objectMapper;
+        this.passwordHashingService = passwordHashingService;
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.requests = requests;
+        this.maxDurationMillis = maxDurationMillis;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            logger.info("Warmup skipped (warmup.enabled=false)");
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxDurationMillis);
+        // A failed warmup only means a slower first request, so it never stops the application.
+        try {
+            int completedIterations = warmUpInProcess(deadline);
+            List<Long> latencies = warmUpOverHttp(deadline);
+            if (latencies.isEmpty()) {
+                logger.info("Warmup finished in {} ms: {} in-process iterations, no HTTP requests",
+                        millisSince(start), completedIterations);
+            } else {
+                logger.info("Warmup finished in {} ms: {} in-process iterations, {} HTTP requests "
+                        + "(first {} µs, last {} µs)", millisSince(start), completedIterations, latencies.size(),
+                        latencies.get(0), latencies.get(latencies.size() - 1));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Warmup interrupted after {} ms", millisSince(start));
+        } catch (Exception e) {
+            logger.warn("Warmup failed after {} ms", millisSince(start), e);
+        }
+    }
+
+    private int warmUpInProcess(long deadline) throws JsonProcessingException {
+        passwordHashingService.encode(USERNAME)
+                .thenCompose(hash -> passwordHashingService.matches(USERNAME, hash))
+                .join();
+
+        User user = new User();
+        user.setId(1L);
+        user.setUsername(USERNAME);
+        user.setPassword("$2a$10$" + "x".repeat(53));
+        List<UserView> page = List.of(UserView.from(user), UserView.from(user), UserView.from(user));
+
+        int i = 0;
+        for (; i < iterations && System.nanoTime() < deadline; i++) {
+            jwtUtil.parseClaims(jwtUtil.createToken(USERNAME + i));
+            objectMapper.writeValueAsBytes(user);
+            objectMapper.writeValueAsBytes(page);
+        }
+        return i;
+    }
+
+    // Returns the latency of each request in microseconds.
+    private List<Long> warmUpOverHttp(long deadline) throws IOException, InterruptedException {
+        List<Long> latencies = new ArrayList<>();
+        if (!(applicationContext instanceof WebServerApplicationContext webContext) || webContext.getWebServer() == null) {
+            return latencies;
+        }
+        // local.management.port is only set when the actuator runs on its own port.
+        int port = applicationContext.getEnvironment().getProperty("local.management.port", Integer.class,
+                webContext.getWebServer().getPort());
+        URI uri = URI.create("http://localhost:" + port + "/actuator/health/liveness");
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+        for (int i = 0; i < requests && System.nanoTime() < deadline; i++) {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtUtil.createToken(USERNAME + i))
+                    .timeout(Duration.ofSeconds(5))
+                    .GET()
+                    .build();
+            long start = System.nanoTime();
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+            latencies.add(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        }
+        return latencies;
+    }
+
+    private static long millisSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
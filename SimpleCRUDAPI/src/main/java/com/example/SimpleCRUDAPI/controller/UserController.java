@@ -1,16 +1,50 @@
 package com.example.SimpleCRUDAPI.controller;
 
 // importing necessary libraries
+import com.example.SimpleCRUDAPI.dto.BatchResult;
+import com.example.SimpleCRUDAPI.dto.OrderView;
+import com.example.SimpleCRUDAPI.dto.UserChanges;
+import com.example.SimpleCRUDAPI.dto.UserSummary;
+import com.example.SimpleCRUDAPI.dto.UserUpdateRequest;
+import com.example.SimpleCRUDAPI.dto.UserView;
+import com.example.SimpleCRUDAPI.dto.UserWithOrders;
 import com.example.SimpleCRUDAPI.entity.User;
+import com.example.SimpleCRUDAPI.service.ChangeFeedService;
+import com.example.SimpleCRUDAPI.service.OrderService;
+import com.example.SimpleCRUDAPI.service.PasswordHashingService;
+import com.example.SimpleCRUDAPI.service.TokenRevocationService;
 import com.example.SimpleCRUDAPI.service.UserService;
+import com.example.SimpleCRUDAPI.util.JwtTokenCache;
 import com.example.SimpleCRUDAPI.util.JwtUtil;
+import com.example.SimpleCRUDAPI.util.RequestContextExecutor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 // The annotation @RestController marks the class as a controller where http requests are handled.
 @RestController
@@ -22,6 +56,12 @@ import java.util.List;
 // related to the User entity.
 public class UserController {
 
+    // The media type used by the streaming endpoint: one JSON document per line.
+    private static final String NDJSON = "application/x-ndjson";
+
+    // The response header carrying the cursor for the next page of users.
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     // The annotation @Autowired is used to wire the UserService class to the
     // UserController class.
     @Autowired
@@ -29,12 +69,44 @@ public class UserController {
     // The private attribute userService is an instance of the UserService class.
     private UserService userService;
 
+    // Password hashing runs on the PasswordHashingService thread pool so the
+    // request threads are released while BCrypt is working.
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    // The database work that follows a password hash runs on Spring Boot's
+    // application task executor (virtual threads when spring.threads.virtual.enabled
+    // is set), so the hashing threads are never blocked on the database.
     @Autowired
-    private BCryptPasswordEncoder bCryptPasswordEncoder;
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private Executor applicationTaskExecutor;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
 
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private JwtTokenCache jwtTokenCache;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    // The ObjectMapper configured by Spring Boot, used to write users one by one in the streaming endpoint.
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Page size used when the client does not send a limit, and the largest page a client may ask for.
+    @Value("${users.page.default-limit:100}")
+    private int defaultPageLimit;
+
+    @Value("${users.page.max-limit:1000}")
+    private int maxPageLimit;
+
     // Create a new user
     // The PostMapping annotation maps HTTP POST requests onto specific handler
     // methods.
@@ -45,46 +117,176 @@ public class UserController {
     // The @RequestBody annotation extracts the User object from the request body
     // and
     // maps it to the user parameter.
-    public ResponseEntity<String> createUser(@RequestBody User user) {
-        // Encrypt the password before saving it to the database
-        user.setPassword(bCryptPasswordEncoder.encode(user.getPassword()));
-
-        // Check if the user already exists
+    // The method returns a CompletableFuture, so Spring MVC releases the request
+    // thread and writes the response once the password has been hashed.
+    public CompletableFuture<ResponseEntity<String>> createUser(@RequestBody User user) {
+        if (user.getUsername() == null || user.getPassword() == null) {
+            return CompletableFuture.completedFuture(missingCredentials());
+        }
+        // Check if the user already exists. This is done before hashing, so a
+        // duplicate registration never pays for a BCrypt hash.
         if (userService.getUserByUsername(user.getUsername()) != null) {
-            return ResponseEntity.status(409).body("User already exists! Please login");
+            return CompletableFuture.completedFuture(userAlreadyExists());
+        }
+
+        try {
+            // Encrypt the password before saving it to the database
+            return passwordHashingService.encode(user.getPassword()).thenApplyAsync(encodedPassword -> {
+                user.setPassword(encodedPassword);
+                try {
+                    userService.createUser(user);
+                } catch (DataIntegrityViolationException e) {
+                    // Another request registered the same username while we were hashing.
+                    return userAlreadyExists();
+                }
+                return ResponseEntity.status(201).body("User created successfully");
+            }, RequestContextExecutor.capture(applicationTaskExecutor));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(serverBusy());
         }
-        User newUser = userService.createUser(user);
-        return ResponseEntity.status(201).body("User created successfully");
     }
 
     // Login a user and return a JWT token
     @PostMapping("/login")
-    public ResponseEntity<String> loginUser(@RequestBody User user) {
+    public CompletableFuture<ResponseEntity<String>> loginUser(@RequestBody User user) {
+        if (user.getUsername() == null || user.getPassword() == null) {
+            return CompletableFuture.completedFuture(missingCredentials());
+        }
         User existingUser = userService.getUserByUsername(user.getUsername());
 
-        if (existingUser != null && bCryptPasswordEncoder.matches(user.getPassword(), existingUser.getPassword())) {
-            // Generate JWT token
-            String token = jwtUtil.createToken(existingUser.getUsername());
-            return ResponseEntity.ok("Bearer " + token);
+        if (existingUser == null) {
+            return CompletableFuture.completedFuture(invalidCredentials());
         }
 
-        return ResponseEntity.status(401).body("Invalid username or password");
+        try {
+            return passwordHashingService.matches(user.getPassword(), existingUser.getPassword()).thenApply(matches -> {
+                if (!matches) {
+                    return invalidCredentials();
+                }
+                // Generate JWT token
+                String token = jwtUtil.createToken(existingUser.getUsername());
+                return ResponseEntity.ok("Bearer " + token);
+            });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(serverBusy());
+        }
     }
 
-    // Get all users
+    // Logout: revoke the token the request was authenticated with, so it can no
+    // longer be used even though it has not expired yet.
+    @PostMapping("/logout")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Void> logoutUser(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        // The JwtAuthenticationFilter already checked the token, so it is valid here.
+        JwtTokenCache.VerifiedToken token = jwtTokenCache.verify(authorization.substring("Bearer ".length()));
+        if (token == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        tokenRevocationService.revokeToken(token);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Get a page of users
     // The GetMapping annotation maps HTTP GET requests onto specific handler
     // methods.
     @GetMapping("/users")
     // The @PreAuthorize annotation is used to secure the getUsers method by
     // allowing only authenticated users to access it.
     @PreAuthorize("isAuthenticated()")
-    // The getUsers method returns a list of all users.
-    public ResponseEntity<List<User>> getUsers() {
+    // The getUsers method returns at most `limit` users whose id is greater than
+    // `after`. When the page is full, the X-Next-Cursor header holds the `after`
+    // value for the next page, so clients can walk the whole table page by page.
+    // The page carries an ETag built from the id and version of every user on it,
+    // so a client polling with If-None-Match gets a 304 and no body while nothing
+    // on the page has changed.
+    public ResponseEntity<List<UserView>> getUsers(@RequestParam(defaultValue = "0") long after,
+            @RequestParam(required = false) Integer limit, WebRequest webRequest) {
+        int pageLimit = pageLimit(limit);
 
-        // The List<User> class is used to store a list of User objects in the users
+        // The List<UserView> class is used to store one page of users in the users
         // variable by calling the getUsers method from the userService instance.
-        List<User> users = userService.getUsers();
-        return users != null ? ResponseEntity.ok(users) : ResponseEntity.notFound().build();
+        List<UserView> users = userService.getUsers(after, pageLimit);
+        String etag = pageETag(users);
+        String nextCursor = users.size() == pageLimit ? String.valueOf(users.get(users.size() - 1).id()) : null;
+        boolean notModified = webRequest.checkNotModified(etag);
+        ResponseEntity.BodyBuilder response = notModified ? notModified(etag) : ResponseEntity.ok().eTag(etag);
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return notModified ? response.build() : response.body(users);
+    }
+
+    // Stream all users as NDJSON
+    // Every user is written to the response as soon as it comes off the database
+    // cursor, and the servlet container sends the body in chunks, so neither the
+    // server nor the database ever holds the full list in memory.
+    @GetMapping(value = "/users/stream", produces = NDJSON)
+    @PreAuthorize("isAuthenticated()")
+    public void streamUsers(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        ObjectWriter writer = objectMapper.writerFor(UserView.class);
+        OutputStream out = response.getOutputStream();
+        try {
+            userService.streamUsers(user -> {
+                try {
+                    out.write(writer.writeValueAsBytes(user));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // The client went away in the middle of the stream; rethrow the original
+            // IOException so the container handles it as a broken connection.
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
+    // Get the changes to users after a sequence number
+    // A client that keeps a copy of the users starts with since=0, which returns
+    // every user, and then only asks for what changed: each call returns the
+    // changes after `since` and the `next` value to send on the following call.
+    // A user that changed several times appears once, with its latest state;
+    // deleted users appear as DELETE entries.
+    @GetMapping("/users/changes")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<UserChanges> getChanges(@RequestParam(defaultValue = "0") long since,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(changeFeedService.getChanges(since, pageLimit(limit)));
+    }
+
+    // Stream the changes to users as server-sent events
+    // Sends the changes after `since`, then every new change as it commits. Each
+    // event id is the sequence number of the change, so a client that reconnects
+    // with Last-Event-ID resumes where it stopped.
+    @GetMapping(value = "/users/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public SseEmitter streamChanges(@RequestParam(defaultValue = "0") long since,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return changeFeedService.subscribe(lastEventId != null ? Math.max(since, lastEventId) : since);
+    }
+
+    // Search users by username prefix
+    // Returns the id and username of at most `limit` users whose username starts
+    // with `prefix`, in username order. When the page is full, X-Next-Cursor holds
+    // the last username, to be sent back as `after` for the next page.
+    @GetMapping("/users/search")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<UserSummary>> searchUsers(@RequestParam String prefix,
+            @RequestParam(defaultValue = "") String after, @RequestParam(required = false) Integer limit) {
+        if (prefix.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        int pageLimit = pageLimit(limit);
+        List<UserSummary> users = userService.searchUsers(prefix, after, pageLimit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (users.size() == pageLimit) {
+            // URL-encoded, so any username fits in a header and can be appended to the query string as is.
+            response.header(NEXT_CURSOR_HEADER,
+                    URLEncoder.encode(users.get(users.size() - 1).getUsername(), StandardCharsets.UTF_8));
+        }
+        return response.body(users);
     }
 
     // Get a user by id
@@ -92,18 +294,89 @@ public class UserController {
     @PreAuthorize("isAuthenticated()")
     // The @PathVariable annotation is used to extract the value of a URI template
     // variable and map it to the method parameter.
-    public ResponseEntity<User> getUserById(@PathVariable Long id) {
+    // The ETag is the version of the user. When it matches If-None-Match the
+    // response is a 304 and the body is never built; with the user in the
+    // UserCache this answers without touching the database at all.
+    public ResponseEntity<UserView> getUserById(@PathVariable Long id, WebRequest webRequest) {
         User user = userService.getUserById(id);
-        return user != null ? ResponseEntity.ok(user) : ResponseEntity.notFound().build();
+        if (user == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = "\"" + user.getVersion() + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return notModified(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(UserView.from(user));
+    }
+
+    // Get a page of the orders of a user
+    // Orders are paged like users: `after` is the last order id of the previous
+    // page and X-Next-Cursor is set when the page is full.
+    @GetMapping("/users/{id}/orders")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<OrderView>> getUserOrders(@PathVariable Long id,
+            @RequestParam(defaultValue = "0") long after, @RequestParam(required = false) Integer limit) {
+        // The user lookup goes through the cache, so it only costs a query on a miss.
+        if (userService.getUserById(id) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        int pageLimit = pageLimit(limit);
+        List<OrderView> orders = orderService.getOrders(id, after, pageLimit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (orders.size() == pageLimit) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(orders.get(orders.size() - 1).id()));
+        }
+        return response.body(orders);
+    }
+
+    // Get a page of users together with their orders
+    // Paged by user id exactly like GET /users. Each page costs two queries, one
+    // for the users and one for all of their orders.
+    @GetMapping("/users/with-orders")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<UserWithOrders>> getUsersWithOrders(@RequestParam(defaultValue = "0") long after,
+            @RequestParam(required = false) Integer limit) {
+        int pageLimit = pageLimit(limit);
+        List<UserWithOrders> users = orderService.getUsersWithOrders(after, pageLimit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (users.size() == pageLimit) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(users.get(users.size() - 1).id()));
+        }
+        return response.body(users);
     }
 
     // Update a user
+    // Only the fields sent in the body are changed: a body with just a username
+    // keeps the current password and skips hashing entirely. A new password is
+    // hashed on the PasswordHashingService pool before the update runs.
     @PutMapping("/users/{id}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<String> updateUser(@PathVariable Long id, @RequestBody User user) {
-        User updatedUser = userService.updateUser(id, user);
-        return updatedUser != null ? ResponseEntity.ok("User Updated Successfully")
-                : ResponseEntity.status(404).body("User not found");
+    public CompletableFuture<ResponseEntity<String>> updateUser(@PathVariable Long id, @RequestBody User user) {
+        if (user.getUsername() == null && user.getPassword() == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Nothing to update"));
+        }
+        if (user.getPassword() == null) {
+            return CompletableFuture.completedFuture(applyUpdate(id, user));
+        }
+
+        try {
+            return passwordHashingService.encode(user.getPassword()).thenApplyAsync(encodedPassword -> {
+                user.setPassword(encodedPassword);
+                return applyUpdate(id, user);
+            }, RequestContextExecutor.capture(applicationTaskExecutor));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(serverBusy());
+        }
+    }
+
+    private ResponseEntity<String> applyUpdate(Long id, User user) {
+        try {
+            boolean updated = userService.updateUser(id, user);
+            return updated ? ResponseEntity.ok("User Updated Successfully")
+                    : ResponseEntity.status(404).body("User not found");
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(409).body("Username already taken");
+        }
     }
 
     // Delete a user
@@ -115,4 +388,68 @@ public class UserController {
         return deleted ? ResponseEntity.noContent().build() : ResponseEntity.status(404).body("User not found");
     }
 
+    // Create many users in one request
+    // The response lists the outcome of every item in the same order as the
+    // request body (CREATED, CONFLICT, INVALID or FAILED).
+    @PostMapping("/users/batch")
+    @PreAuthorize("isAuthenticated()")
+    public CompletableFuture<ResponseEntity<BatchResult>> createUsers(@RequestBody List<User> users) {
+        return userService.createUsers(users).thenApply(ResponseEntity::ok);
+    }
+
+    // Update many users in one request
+    // Every item needs an id; username and password are optional.
+    @PutMapping("/users/batch")
+    @PreAuthorize("isAuthenticated()")
+    public CompletableFuture<ResponseEntity<BatchResult>> updateUsers(@RequestBody List<UserUpdateRequest> updates) {
+        return userService.updateUsers(updates).thenApply(ResponseEntity::ok);
+    }
+
+    // Delete many users in one request
+    // The request body is a JSON array of user ids.
+    @DeleteMapping("/users/batch")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<BatchResult> deleteUsers(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(userService.deleteUsers(ids));
+    }
+
+    // The page size to use for a requested limit: the default when there is none, capped at the maximum.
+    private int pageLimit(Integer limit) {
+        return limit == null ? defaultPageLimit : Math.max(1, Math.min(limit, maxPageLimit));
+    }
+
+    private static ResponseEntity.BodyBuilder notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag);
+    }
+
+    // Strong ETag for a page of users. Any insert, delete or update on the page
+    // changes an id or a version, and with it the hash.
+    private static String pageETag(List<UserView> users) {
+        long hash = 1;
+        for (UserView user : users) {
+            hash = 31 * hash + user.id();
+            hash = 31 * hash + user.version();
+        }
+        return "\"" + users.size() + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    private static ResponseEntity<String> userAlreadyExists() {
+        return ResponseEntity.status(409).body("User already exists! Please login");
+    }
+
+    private static ResponseEntity<String> missingCredentials() {
+        return ResponseEntity.badRequest().body("Username and password are required");
+    }
+
+    private static ResponseEntity<String> invalidCredentials() {
+        return ResponseEntity.status(401).body("Invalid username or password");
+    }
+
+    // Returned when the password hashing queue is full. The Retry-After header
+    // tells the client to back off for a second before trying again.
+    private static ResponseEntity<String> serverBusy() {
+        return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Server is busy, please try again later");
+    }
+
 }
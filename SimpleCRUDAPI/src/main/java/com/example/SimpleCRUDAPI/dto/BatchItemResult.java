@@ -0,0 +1,19 @@
+package com.example.SimpleCRUDAPI.dto;
+
+// The BatchItemResult record reports what happened to one item of a batch
+// request. `index` is the position of the item in the request body, so the
+// client can match every result to what it sent.
+public record BatchItemResult(int index, Long id, Status status, String message) {
+
+    public enum Status {
+        CREATED, UPDATED, DELETED, CONFLICT, NOT_FOUND, INVALID, FAILED
+    }
+
+    public static BatchItemResult of(int index, Long id, Status status) {
+        return new BatchItemResult(index, id, status, null);
+    }
+
+    public static BatchItemResult failed(int index, Long id, String message) {
+        return new BatchItemResult(index, id, Status.FAILED, message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.SimpleCRUDAPI.dto;
+
+import java.util.List;
+
+// The BatchResult record is the response body of the batch endpoints: how many
+// items succeeded, how many did not, and one BatchItemResult per item.
+public record BatchResult(int succeeded, int failed, List<BatchItemResult> items) {
+
+    private static final List<BatchItemResult.Status> SUCCESS = List.of(
+            BatchItemResult.Status.CREATED, BatchItemResult.Status.UPDATED, BatchItemResult.Status.DELETED);
+
+    public static BatchResult of(List<BatchItemResult> items) {
+        int succeeded = (int) items.stream().filter(item -> SUCCESS.contains(item.status())).count();
+        return new BatchResult(succeeded, items.size() - succeeded, items);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.SimpleCRUDAPI.dto;
+
+// The OrderView record is what the read endpoints return for an order. The
+// repository selects these columns straight from the orders table, so the
+// user of the order is never loaded.
+public record OrderView(Long id, Long userId, String productName, int quantity) {
+}
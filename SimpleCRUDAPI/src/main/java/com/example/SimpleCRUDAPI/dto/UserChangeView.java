@@ -0,0 +1,15 @@
+package com.example.SimpleCRUDAPI.dto;
+
+import com.example.SimpleCRUDAPI.entity.UserChange;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Instant;
+
+// The UserChangeView record is one entry of the change feed: the sequence
+// number of the change, the user it is about, and for an UPSERT the current
+// username and version of the user. A DELETE only carries the user id.
+// changedAt is only used to decide when a gap in the sequence numbers can be
+// skipped (see ChangeFeedService) and is not sent to clients.
+public record UserChangeView(long seq, Long userId, UserChange.Operation operation, String username, Long version,
+        @JsonIgnore Instant changedAt) {
+}
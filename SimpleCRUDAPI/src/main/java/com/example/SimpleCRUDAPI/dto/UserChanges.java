@@ -0,0 +1,8 @@
+package com.example.SimpleCRUDAPI.dto;
+
+import java.util.List;
+
+// The UserChanges record is the response of GET /users/changes: the changes
+// after the requested sequence number, and the `since` value for the next call.
+public record UserChanges(List<UserChangeView> changes, long next) {
+}
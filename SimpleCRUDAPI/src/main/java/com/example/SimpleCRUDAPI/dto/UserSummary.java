@@ -0,0 +1,11 @@
+package com.example.SimpleCRUDAPI.dto;
+
+// The UserSummary interface is the projection returned by the username search:
+// only the id and the username are selected. Spring Data implements it from the
+// columns of the native query.
+public interface UserSummary {
+
+    Long getId();
+
+    String getUsername();
+}
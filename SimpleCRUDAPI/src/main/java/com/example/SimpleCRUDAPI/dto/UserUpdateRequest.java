@@ -0,0 +1,6 @@
+package com.example.SimpleCRUDAPI.dto;
+
+// The UserUpdateRequest record is one item of a batch update. Fields that are
+// null are left unchanged.
+public record UserUpdateRequest(Long id, String username, String password) {
+}
@@ -0,0 +1,14 @@
+package com.example.SimpleCRUDAPI.dto;
+
+import com.example.SimpleCRUDAPI.entity.User;
+
+// The UserView record is what the read endpoints return for a user. It leaves
+// out the password hash, and the repository selects only these columns, so the
+// hash is neither read from the database nor sent to the client. `version`
+// changes on every update and is used as the ETag of the user.
+public record UserView(Long id, String username, Long version) {
+
+    public static UserView from(User user) {
+        return new UserView(user.getId(), user.getUsername(), user.getVersion());
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.SimpleCRUDAPI.dto;
+
+import java.util.List;
+
+// The UserWithOrders record is one item of the "users with orders" listing: a
+// user and all of their orders.
+public record UserWithOrders(Long id, String username, Long version, List<OrderView> orders) {
+
+    public static UserWithOrders of(UserView user, List<OrderView> orders) {
+        return new UserWithOrders(user.id(), user.username(), user.version(), orders);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.SimpleCRUDAPI.entity;
+
+// jakarta persistence gives the @
+import jakarta.persistence.*;
+
+// The Order entity maps the orders table created by migration V1. Every order belongs to one user.
+@Entity
+@Table(name = "orders")
+public class Order {
+    @Id
+    private Long id;
+
+    // The @ManyToOne annotation maps the user_id foreign key. FetchType.LAZY means the user is not loaded together with the order; the read endpoints select the user_id column directly and never touch the association, so listing orders never triggers one extra query per order.
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "product_name", nullable = false)
+    private String productName;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    public Long getId() {
+        return id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+}
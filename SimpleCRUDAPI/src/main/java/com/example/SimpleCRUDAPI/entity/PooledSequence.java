@@ -0,0 +1,27 @@
+package com.example.SimpleCRUDAPI.entity;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// The @PooledSequence annotation generates ids from a database sequence, like
+// @SequenceGenerator, but reads the allocation size from a Hibernate setting
+// (spring.jpa.properties.<setting> in application.properties), so it can be
+// changed without recompiling. See PooledSequenceGenerator.
+@IdGeneratorType(PooledSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface PooledSequence {
+
+    // The name of the database sequence.
+    String name();
+
+    // The Hibernate setting holding the allocation size.
+    String allocationSizeSetting();
+
+    // Used when the setting is not set.
+    int defaultAllocationSize() default 50;
+}
@@ -0,0 +1,33 @@
+package com.example.SimpleCRUDAPI.entity;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+// The PooledSequenceGenerator class is the SequenceStyleGenerator behind
+// @PooledSequence. One call to the sequence reserves allocation-size ids, which
+// Hibernate then hands out from memory. The allocation size must equal the
+// INCREMENT BY of the sequence in the database; Hibernate refuses to start when
+// they differ, so both are changed together.
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    private final PooledSequence config;
+
+    public PooledSequenceGenerator(PooledSequence config) {
+        this.config = config;
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        Object allocationSize = serviceRegistry.requireService(ConfigurationService.class)
+                .getSettings().get(config.allocationSizeSetting());
+        parameters.setProperty(SEQUENCE_PARAM, config.name());
+        parameters.setProperty(INCREMENT_PARAM, allocationSize != null
+                ? allocationSize.toString().trim() : String.valueOf(config.defaultAllocationSize()));
+        super.configure(type, parameters, serviceRegistry);
+    }
+}
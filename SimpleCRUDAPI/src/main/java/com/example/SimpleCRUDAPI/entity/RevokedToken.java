@@ -0,0 +1,44 @@
+package com.example.SimpleCRUDAPI.entity;
+
+// jakarta persistence gives the @
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// The RevokedToken entity is one row of the revoked_tokens table. The key is either "jti:<token id>", for a single token revoked on logout, or "user:<username>", which revokes every token of the user issued before revokedAt (a password change). A row is only needed until the last token it revokes has expired, which is expiresAt.
+@Entity
+@Table(name = "revoked_tokens")
+public class RevokedToken {
+
+    @Id
+    @Column(name = "revocation_key", length = 300)
+    private String revocationKey;
+
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    protected RevokedToken() {
+    }
+
+    public RevokedToken(String revocationKey, Instant revokedAt, Instant expiresAt) {
+        this.revocationKey = revocationKey;
+        this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getRevocationKey() {
+        return revocationKey;
+    }
+
+    public Instant getRevokedAt() {
+        return revokedAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+}
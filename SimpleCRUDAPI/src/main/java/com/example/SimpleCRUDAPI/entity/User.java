@@ -8,8 +8,8 @@ import jakarta.persistence.*;
 public class User {
     // The @Id annotation is used to specify the primary key of an entity. 
     @Id
-    // The @GeneratedValue annotation is used to specify the primary key generation strategy to use. The GenerationType.IDENTITY strategy is used to specify that the primary key is generated by the database. The primary key is automatically generated by the database when a new row is inserted into the table.
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // The @PooledSequence annotation takes ids from the users_seq database sequence. Unlike IDENTITY, Hibernate knows the id before the row is inserted, so many INSERTs can be sent together in one JDBC batch. The allocation size is the users.id.allocation-size property.
+    @PooledSequence(name = "users_seq", allocationSizeSetting = "users.id.allocation-size")
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -18,6 +18,10 @@ public class User {
     @Column(nullable = false)
     private String password;
 
+    // The @Version annotation marks the column Hibernate increments on every update of the entity. It is also used as the ETag of the user, so clients can ask "has this user changed?" without downloading it again.
+    @Version
+    private Long version;
+
     public long getId() {
         return id;
     }
@@ -42,4 +46,8 @@ public class User {
         this.password = password;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
 }
@@ -0,0 +1,75 @@
+package com.example.SimpleCRUDAPI.entity;
+
+// jakarta persistence gives the @
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+// The UserChange entity is one row of the change feed (table user_changes). There is a single row per user: every change of the user moves the row to a new sequence number, so the feed after a given sequence number holds each changed user once, with its latest operation. A deleted user keeps its row as a DELETE tombstone, so clients learn about the delete.
+@Entity
+@Table(name = "user_changes")
+public class UserChange implements Persistable<Long> {
+
+    public enum Operation { UPSERT, DELETE }
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false, unique = true)
+    private long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Operation operation;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    // The id is assigned by the application, so Spring Data cannot tell a new row from an existing one by a null id. Without this flag, saving a new change would first SELECT it to decide between INSERT and UPDATE.
+    @Transient
+    private boolean isNew = true;
+
+    protected UserChange() {
+    }
+
+    public UserChange(Long userId) {
+        this.userId = userId;
+    }
+
+    @Override
+    public Long getId() {
+        return userId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public void record(long seq, Operation operation, Instant changedAt) {
+        this.seq = seq;
+        this.operation = operation;
+        this.changedAt = changedAt;
+    }
+
+}
@@ -1,7 +1,10 @@
 package com.example.SimpleCRUDAPI.filter;
 
-// Importing the JwtUtil class to validate the JWT token using the method validateToken() from the JwtUtil utility class.
-import com.example.SimpleCRUDAPI.util.JwtUtil;
+// Importing the JwtTokenCache class to validate the JWT token using the method validateToken(), which only runs the full JwtUtil validation the first time a token is seen.
+import com.example.SimpleCRUDAPI.util.JwtTokenCache;
+
+// Importing the TokenRevocationService to reject tokens that were revoked by a logout or a password change.
+import com.example.SimpleCRUDAPI.service.TokenRevocationService;
 
 // Importing Spring Security’s SecurityContextHolder to manage the security context (i.e., the authentication details).
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -40,12 +43,16 @@ import org.springframework.lang.NonNull;
  request */
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    // Injecting JwtUtil to utilize the JWT validation methods.
-    private final JwtUtil jwtUtil;
+    // Injecting JwtTokenCache to utilize the cached JWT validation.
+    private final JwtTokenCache jwtTokenCache;
+
+    // Injecting TokenRevocationService to check whether a valid token has been revoked. The check is answered from memory for nearly every token.
+    private final TokenRevocationService tokenRevocationService;
 
-    // Constructor to inject JwtUtil into this filter.
-    public JwtAuthenticationFilter(JwtUtil jwtUtil) {
-        this.jwtUtil = jwtUtil; // Assigning the injected JwtUtil instance to the local variable.
+    // Constructor to inject JwtTokenCache and TokenRevocationService into this filter.
+    public JwtAuthenticationFilter(JwtTokenCache jwtTokenCache, TokenRevocationService tokenRevocationService) {
+        this.jwtTokenCache = jwtTokenCache; // Assigning the injected JwtTokenCache instance to the local variable.
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     // The core method where we check for the token and validate it.
@@ -65,13 +72,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
             try {
                 //Validating the JWT token.
-                // We call the validateToken method of JwtUtil, which will return the username
-                // if the token is valid.
-                String username = jwtUtil.validateToken(token);
+                // We call the verify method of JwtTokenCache, which will return the
+                // verified token if the token is valid. A token that was already validated is
+                // answered with a single cache lookup.
+                JwtTokenCache.VerifiedToken verified = jwtTokenCache.verify(token);
 
-                //If the username is not null (i.e., token is valid), create the
+                //If the token is valid and has not been revoked, create the
                 // authentication token.
-                if (username != null) {
+                if (verified != null && !tokenRevocationService.isRevoked(verified)) {
+                    String username = verified.username();
                     // Creating the UsernamePasswordAuthenticationToken with the username.
                     // In this case, we don't need to pass the password or roles as we're only
                     // verifying the user.
@@ -86,13 +95,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     if (SecurityContextHolder.getContext().getAuthentication() == null) {
                         SecurityContextHolder.getContext().setAuthentication(authenticationToken);
                     } else {
-                        System.out.println("User is already authenticated");
+                        logger.trace("User is already authenticated");
                     }
                 }
             } catch (Exception e) {
                 //If there's any error while validating the token, log the exception
-                // (optional).
-                System.out.println("JWT validation failed: " + e.getMessage());
+                // at DEBUG level with the logger inherited from OncePerRequestFilter. The
+                // message is only built when DEBUG is enabled. Validation outcomes are
+                // counted in jwt.validations.
+                if (logger.isDebugEnabled()) {
+                    logger.debug("JWT validation failed: " + e.getMessage());
+                }
             }
         }
 
@@ -0,0 +1,226 @@
+package com.example.SimpleCRUDAPI.filter;
+
+import com.example.SimpleCRUDAPI.util.RateLimiter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The RateLimitFilter protects /login and /register, the two public endpoints
+// that run a BCrypt hash. Every POST to them takes a token from the bucket of
+// the client IP and from the bucket of the username in the body; when either
+// bucket is empty the request is answered with a 429 and a Retry-After header
+// before it reaches the controller or the password hashing pool.
+// Limits are set per endpoint, e.g. rate-limit.login.ip.per-minute and
+// rate-limit.login.ip.burst.
+//
+// The body is always read, whether or not it has a Content-Length, but never
+// more than rate-limit.max-body-bytes of it: a larger body is answered with a
+// 413, so no request can skip the username limit by being large or chunked.
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+
+    // Credentials are a few dozen bytes; anything above this is rejected.
+    private final int maxBodyBytes;
+
+    // Limiters by servlet path, one for the client IP and one for the username.
+    private final Map<String, RateLimiter> ipLimiters;
+    private final Map<String, RateLimiter> usernameLimiters;
+
+    public RateLimitFilter(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${rate-limit.enabled:true}") boolean enabled,
+            @Value("${rate-limit.maximum-keys:100000}") long maximumKeys,
+            @Value("${rate-limit.max-body-bytes:4096}") int maxBodyBytes,
+            @Value("${rate-limit.login.ip.per-minute:60}") int loginIpPerMinute,
+            @Value("${rate-limit.login.ip.burst:20}") int loginIpBurst,
+            @Value("${rate-limit.login.username.per-minute:10}") int loginUsernamePerMinute,
+            @Value("${rate-limit.login.username.burst:5}") int loginUsernameBurst,
+            @Value("${rate-limit.register.ip.per-minute:20}") int registerIpPerMinute,
+            @Value("${rate-limit.register.ip.burst:5}") int registerIpBurst,
+            @Value("${rate-limit.register.username.per-minute:5}") int registerUsernamePerMinute,
+            @Value("${rate-limit.register.username.burst:3}") int registerUsernameBurst) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxBodyBytes = maxBodyBytes;
+        this.ipLimiters = Map.of(
+                "/login", new RateLimiter("login", "ip", loginIpPerMinute, loginIpBurst, maximumKeys, meterRegistry),
+                "/register", new RateLimiter("register", "ip", registerIpPerMinute, registerIpBurst, maximumKeys,
+                        meterRegistry));
+        this.usernameLimiters = Map.of(
+                "/login", new RateLimiter("login", "username", loginUsernamePerMinute, loginUsernameBurst, maximumKeys,
+                        meterRegistry),
+                "/register", new RateLimiter("register", "username", registerUsernamePerMinute,
+                        registerUsernameBurst, maximumKeys, meterRegistry));
+    }
+
+    // Every other request skips the filter without any work.
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled || !"POST".equals(request.getMethod()) || !ipLimiters.containsKey(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String path = request.getServletPath();
+
+        // The IP is checked first, so a flood from one address is turned away without reading its body.
+        long wait = ipLimiters.get(path).tryAcquire(request.getRemoteAddr());
+        if (wait > 0) {
+            tooManyRequests(response, wait);
+            return;
+        }
+
+        // The body has to be read to find the username, so the controller gets a
+        // copy of the same bytes instead of the consumed input stream. One byte
+        // more than the limit is read to tell a body at the limit from a larger one.
+        if (request.getContentLengthLong() > maxBodyBytes) {
+            payloadTooLarge(response);
+            return;
+        }
+        byte[] body = request.getInputStream().readNBytes(maxBodyBytes + 1);
+        if (body.length > maxBodyBytes) {
+            payloadTooLarge(response);
+            return;
+        }
+        String username = username(body);
+        if (username != null) {
+            wait = usernameLimiters.get(path).tryAcquire(username);
+            if (wait > 0) {
+                tooManyRequests(response, wait);
+                return;
+            }
+        }
+
+        filterChain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    // Returns the "username" field of a JSON body, or null if there is none. A
+    // malformed body is left for the controller to reject.
+    private String username(byte[] body) {
+        try {
+            JsonNode username = objectMapper.readTree(body).get("username");
+            return username != null && username.isTextual() ? username.asText() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // The 429 is written straight to the response, so a rejected request costs
+    // no more than a map lookup and a few header writes.
+    private static void tooManyRequests(HttpServletResponse response, long waitNanos) throws IOException {
+        // Rounded up, so a client that waits this long always finds a token.
+        long retryAfterSeconds = TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1;
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("Too many requests, please try again later");
+    }
+
+    private void payloadTooLarge(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("Request body is larger than " + maxBodyBytes + " bytes");
+    }
+
+    // A request whose body has already been read, replaying the same bytes to the rest of the chain.
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The whole body is already in memory, so a non-blocking reader is told
+                // right away that data is available and that it has all been read.
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        // Readers of the body get the same cached bytes, decoded with the request's
+        // character encoding (UTF-8, the JSON default, when none is given).
+        @Override
+        public BufferedReader getReader() throws UnsupportedEncodingException {
+            String encoding = getCharacterEncoding();
+            Charset charset;
+            try {
+                charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            } catch (IllegalArgumentException e) {
+                throw new UnsupportedEncodingException(encoding);
+            }
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.SimpleCRUDAPI.repository;
+
+import com.example.SimpleCRUDAPI.dto.OrderView;
+import com.example.SimpleCRUDAPI.entity.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+// Read-only transactions, served by a read replica when replicas are configured.
+@Transactional(readOnly = true)
+public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    // Keyset pagination over the orders of one user: at most `limit` orders whose id is greater than `after`, ordered by id. `o.user.id` is read from the user_id column, so the users table is not joined. The (user_id, id) index from migration V4 serves both the filter and the order.
+    @Query("select new com.example.SimpleCRUDAPI.dto.OrderView(o.id, o.user.id, o.productName, o.quantity) from Order o where o.user.id = :userId and o.id > :after order by o.id")
+    List<OrderView> findViewsByUserId(Long userId, Long after, Limit limit);
+
+    // Returns the orders of all the given users in a single query. Used by the "users with orders" listing to load the orders of a whole page of users at once instead of one query per user.
+    @Query("select new com.example.SimpleCRUDAPI.dto.OrderView(o.id, o.user.id, o.productName, o.quantity) from Order o where o.user.id in :userIds order by o.user.id, o.id")
+    List<OrderView> findViewsByUserIds(Collection<Long> userIds);
+}
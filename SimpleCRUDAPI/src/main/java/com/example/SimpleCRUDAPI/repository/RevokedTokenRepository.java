@@ -0,0 +1,26 @@
+package com.example.SimpleCRUDAPI.repository;
+
+import com.example.SimpleCRUDAPI.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+@Transactional(readOnly = true)
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    // The keys of the revocations that still matter, used to rebuild the Bloom filter. Only the key column is read.
+    @Query("select r.revocationKey from RevokedToken r where r.expiresAt > :now")
+    List<String> findActiveKeys(Instant now);
+
+    // Removes the revocations whose tokens have all expired, so the table and the filter stay small.
+    @Modifying
+    @Transactional
+    @Query("delete from RevokedToken r where r.expiresAt <= :now")
+    int deleteExpired(Instant now);
+}
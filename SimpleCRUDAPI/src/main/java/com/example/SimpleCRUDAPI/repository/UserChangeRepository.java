@@ -0,0 +1,27 @@
+package com.example.SimpleCRUDAPI.repository;
+
+import com.example.SimpleCRUDAPI.dto.UserChangeView;
+import com.example.SimpleCRUDAPI.entity.UserChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+@Transactional(readOnly = true)
+public interface UserChangeRepository extends JpaRepository<UserChange, Long> {
+
+    // The changes with a sequence number greater than `since`, in sequence order, joined with the current state of each user in the same query. Deleted users have no row in users, so their username and version are null. The unique index on seq makes this a range scan, so the cost depends on the size of the delta, not of the table.
+    @Query("select new com.example.SimpleCRUDAPI.dto.UserChangeView(c.seq, c.userId, c.operation, u.username, u.version, c.changedAt) "
+            + "from UserChange c left join User u on u.id = c.userId where c.seq > :since order by c.seq")
+    List<UserChangeView> findChangesSince(long since, Limit limit);
+
+    // Takes `count` numbers from the user_changes_seq sequence (migration V6) in one round trip. Must run in the writer's transaction: a read-only transaction may not advance a sequence. nextval and generate_series are PostgreSQL functions (H2 has them in PostgreSQL mode). Hibernate's pooled sequences are not used here: they hand out blocks of numbers per instance, so a change could commit long after higher numbers from another instance and be skipped by readers that have passed the gap.
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query(value = "select nextval('user_changes_seq') from generate_series(1, :count)", nativeQuery = true)
+    List<Long> nextSeqs(int count);
+}
@@ -1,15 +1,68 @@
 package com.example.SimpleCRUDAPI.repository;
 
 
+import com.example.SimpleCRUDAPI.dto.UserSummary;
+import com.example.SimpleCRUDAPI.dto.UserView;
 import com.example.SimpleCRUDAPI.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 // The @Repository annotation tells Spring to bootstrap the repository during component scan. Spring Data JPA will generate the implementation of the repository interface at runtime. The repository interface is a marker interface. It is used to indicate that the class provides the mechanism for storage, retrieval, search, update, and delete operation on objects. Repository is a DAO (Data Access Object) pattern implementation that provides a way to interact with the database.
 @Repository
+// The query methods declared here run in read-only transactions, so with read replicas configured they are served by a replica. The @Modifying methods override this with a read-write transaction. Methods inherited from JpaRepository, such as save, keep their own transaction settings.
+@Transactional(readOnly = true)
 public interface UserRepository extends JpaRepository<User, Long> {
     // The UserRepository interface extends the JpaRepository interface which provides CRUD operations for the User entity. Repository in java is a mechanism for encapsulating storage, retrieval, and search behavior which emulates a collection of objects in memory. The @Repository annotation is used to indicate that the class provides the mechanism for storage, retrieval, search, update, and delete operation on objects. Repository is a DAO (Data Access Object) pattern implementation that provides a way to interact with the database.
     // here we are extending the JpaRepository interface and passing the User entity and the type of the primary key of the User entity which is Long. we don't need to provide any implementation for the methods in the JpaRepository interface as it provides the implementation for the CRUD operations. JpaRepository is a JPA specific extension of the Repository interface. It contains the full API of CrudRepository and PagingAndSortingRepository. 
     
     // Add a custom method to find a user by username
     User findByUsername(String username);
-}
\ No newline at end of file
+
+    // Returns only the id of the user with the given username, used by the username cache.
+    @Query("select u.id from User u where u.username = :username")
+    Long findIdByUsername(String username);
+
+    // Updates a user with a single UPDATE statement. A null parameter keeps the current value of its column, so a client can change only the username or only the password. The version is incremented so the user's ETag changes. Returns the number of rows changed, so 0 means there is no user with this id.
+    @Modifying
+    @Transactional
+    @Query("update User u set u.username = coalesce(:username, u.username), u.password = coalesce(:password, u.password), u.version = u.version + 1 where u.id = :id")
+    int updatePartially(Long id, String username, String password);
+
+    // Deletes a user with a single DELETE statement, without loading it first. Returns the number of rows deleted, so 0 means there is no user with this id.
+    @Modifying
+    @Transactional
+    @Query("delete from User u where u.id = :id")
+    int deleteByIdReturningCount(Long id);
+
+    // Returns which of the given usernames are already taken, in a single query. Used by the batch import to report conflicts without one lookup per user.
+    @Query("select u.username from User u where u.username in :usernames")
+    List<String> findExistingUsernames(Collection<String> usernames);
+
+    // Returns which of the given ids exist, in a single query. Used by the batch delete to report missing users.
+    @Query("select u.id from User u where u.id in :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    // Keyset pagination: returns at most `limit` users whose id is greater than `after`, ordered by id. Because the primary key index is already sorted by id, the database jumps straight to `after` instead of scanning and throwing away rows like OFFSET does, so every page costs the same no matter how deep the client goes. Only the columns of UserView are selected.
+    @Query("select new com.example.SimpleCRUDAPI.dto.UserView(u.id, u.username, u.version) from User u where u.id > :after order by u.id")
+    List<UserView> findViewsAfter(Long after, Limit limit);
+
+    // Streams every user ordered by id from a JDBC cursor. The fetch size hint makes the PostgreSQL driver pull rows from the server in chunks instead of loading the whole result set into memory. UserView objects are not managed by Hibernate, so nothing piles up in the persistence context. The stream must be consumed inside a transaction and closed afterwards.
+    @Query("select new com.example.SimpleCRUDAPI.dto.UserView(u.id, u.username, u.version) from User u order by u.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<UserView> streamAllViews();
+
+    // Username prefix search, keyset-paginated by username. Usernames are compared with the "C" collation (byte order), which is what the index from migration V5 is sorted by, so the prefix becomes a range scan on that index: `from` is the prefix itself and `to` the first string after every string that starts with it. The range is passed as plain parameters rather than a LIKE pattern, so the index is used even when PostgreSQL switches to a generic plan for the prepared statement. `after` is the last username of the previous page.
+    @Query(value = "select id, username from users where username collate \"C\" >= :from and username collate \"C\" < :to and username collate \"C\" > :after order by username collate \"C\" limit :limit", nativeQuery = true)
+    List<UserSummary> searchByUsernameRange(String from, String to, String after, int limit);
+}
@@ -0,0 +1,306 @@
+package com.example.SimpleCRUDAPI.service;
+
+import com.example.SimpleCRUDAPI.dto.UserChangeView;
+import com.example.SimpleCRUDAPI.dto.UserChanges;
+import com.example.SimpleCRUDAPI.entity.UserChange;
+import com.example.SimpleCRUDAPI.repository.UserChangeRepository;
+import com.example.SimpleCRUDAPI.util.ThreadFactories;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// The ChangeFeedService class records every write to users in the change feed
+// and serves it to clients that keep a copy of the users in sync: instead of
+// downloading the whole list, a client asks for the changes after the last
+// sequence number it has seen.
+//
+// Sequence numbers come from the user_changes_seq database sequence, so writers
+// never wait for each other. They are handed out in order but may commit out of
+// order, which leaves gaps that a reader cannot tell apart at first: a number
+// that will never appear (a row that moved on, a rolled-back write) or one whose
+// transaction has not committed yet. Readers therefore stop at a gap until the
+// change after it is older than users.changes.settle-ms, which is longer than
+// any write transaction; by then a missing number can no longer show up.
+//
+// Clients can also subscribe to the feed with server-sent events. One
+// dispatcher thread reads new changes once and puts them on the bounded queue
+// of every subscriber; each subscriber's queue is drained by its own task on
+// the sender executor, so a slow client only delays itself. The dispatcher
+// stops reading for a subscriber whose queue is full, and its sender asks for
+// more once it has emptied the queue: a subscriber that starts far behind, or
+// falls behind, catches up at the pace its connection takes the changes. The
+// dispatcher runs right after a change commits on this instance, and every
+// poll-interval-ms to pick up changes committed by other instances.
+@Service
+public class ChangeFeedService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeedService.class);
+
+    // Changes read per query by the dispatcher.
+    private static final int DISPATCH_BATCH_SIZE = 500;
+
+    private final UserChangeRepository userChangeRepository;
+
+    private final long sseTimeoutMillis;
+
+    private final Duration settleTime;
+
+    private final int subscriberQueueSize;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService dispatcher;
+
+    // Runs the tasks that write queued changes to the subscribers' connections.
+    private final ExecutorService sender;
+
+    public ChangeFeedService(UserChangeRepository userChangeRepository, MeterRegistry meterRegistry,
+            @Value("${users.changes.poll-interval-ms:1000}") long pollIntervalMillis,
+            @Value("${users.changes.sse-timeout-ms:1800000}") long sseTimeoutMillis,
+            @Value("${users.changes.settle-ms:5000}") long settleMillis,
+            @Value("${users.changes.subscriber-queue-size:1000}") int subscriberQueueSize,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.userChangeRepository = userChangeRepository;
+        this.sseTimeoutMillis = sseTimeoutMillis;
+        this.settleTime = Duration.ofMillis(settleMillis);
+        this.subscriberQueueSize = subscriberQueueSize;
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(ThreadFactories.named("change-feed-", virtualThreads));
+        dispatcher.scheduleWithFixedDelay(this::dispatch, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        // A task at most per subscriber with queued changes; idle threads of the platform pool are released.
+        this.sender = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(ThreadFactories.named("change-feed-send-", true))
+                : Executors.newCachedThreadPool(ThreadFactories.named("change-feed-send-", false));
+        Gauge.builder("users.changes.subscribers", subscribers, Set::size)
+                .description("Clients subscribed to the user change feed")
+                .register(meterRegistry);
+    }
+
+    // Records a change of the given users in the current transaction. Each user
+    // gets a new number from the sequence and its feed entry is moved to it.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Collection<Long> userIds, UserChange.Operation operation) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<Long> seqs = userChangeRepository.nextSeqs(userIds.size()).stream().sorted().toList();
+
+        Map<Long, UserChange> existing = userChangeRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(UserChange::getUserId, Function.identity()));
+        Instant now = Instant.now();
+        List<UserChange> created = new ArrayList<>();
+        Iterator<Long> seq = seqs.iterator();
+        for (Long userId : userIds) {
+            UserChange change = existing.get(userId);
+            if (change == null) {
+                change = new UserChange(userId);
+                created.add(change);
+            }
+            change.record(seq.next(), operation, now);
+        }
+        userChangeRepository.saveAll(created);
+
+        // Wake the dispatcher once the changes are visible.
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (!subscribers.isEmpty()) {
+                    dispatcher.execute(ChangeFeedService.this::dispatch);
+                }
+            }
+        });
+    }
+
+    // Get at most `limit` changes after sequence number `since`
+    @Transactional(readOnly = true)
+    public UserChanges getChanges(long since, int limit) {
+        List<UserChangeView> changes = settled(since, userChangeRepository.findChangesSince(since, Limit.of(limit)));
+        long next = changes.isEmpty() ? since : changes.get(changes.size() - 1).seq();
+        return new UserChanges(changes, next);
+    }
+
+    // Returns the changes up to the first gap that may still be filled: a gap is
+    // only passed when the change after it is older than the settle time.
+    private List<UserChangeView> settled(long since, List<UserChangeView> changes) {
+        Instant settledBefore = Instant.now().minus(settleTime);
+        long expected = since + 1;
+        for (int i = 0; i < changes.size(); i++) {
+            UserChangeView change = changes.get(i);
+            if (change.seq() != expected && change.changedAt().isAfter(settledBefore)) {
+                return changes.subList(0, i);
+            }
+            expected = change.seq() + 1;
+        }
+        return changes;
+    }
+
+    // Subscribe to the changes after sequence number `since`. The changes
+    // already in the feed are sent first, then new ones as they commit.
+    public SseEmitter subscribe(long since) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, since, subscriberQueueSize);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        dispatcher.execute(this::dispatch);
+        return emitter;
+    }
+
+    // Reads the changes after the oldest cursor among the subscribers with room
+    // in their queue and queues for each of them the ones it has not received
+    // yet. Always runs on the dispatcher thread, so the cursors need no locking.
+    private void dispatch() {
+        try {
+            while (true) {
+                // A subscriber with a full queue waits for its sender to ask for more.
+                List<Subscriber> ready = subscribers.stream()
+                        .filter(subscriber -> subscriber.queue.remainingCapacity() > 0)
+                        .toList();
+                if (ready.isEmpty()) {
+                    return;
+                }
+                long since = ready.stream().mapToLong(subscriber -> subscriber.cursor).min().getAsLong();
+                List<UserChangeView> read = userChangeRepository.findChangesSince(since, Limit.of(DISPATCH_BATCH_SIZE));
+                List<UserChangeView> changes = settled(since, read);
+                for (Subscriber subscriber : ready) {
+                    subscriber.offer(changes);
+                }
+                // Stop at the end of the feed, or at a gap that has not settled yet.
+                if (read.size() < DISPATCH_BATCH_SIZE || changes.size() < read.size()) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            // Caught so the scheduled polling keeps running.
+            logger.warn("Dispatching user changes failed", e);
+        }
+    }
+
+    // Ends the open streams as soon as the application starts to shut down:
+    // graceful shutdown of the web server would otherwise wait for them until it
+    // times out. The clients reconnect with Last-Event-ID to another instance.
+    @EventListener(ContextClosedEvent.class)
+    public void completeSubscribers() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        sender.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        // Changes queued for this subscriber but not sent yet.
+        private final BlockingQueue<UserChangeView> queue;
+
+        // Whether a sender task is draining the queue.
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        // Set when the queue filled up before the dispatcher had queued every change read for this subscriber.
+        private volatile boolean behind;
+
+        // The sequence number of the last change queued for this subscriber. Only used by the dispatcher thread.
+        private long cursor;
+
+        private Subscriber(SseEmitter emitter, long cursor, int queueSize) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+        }
+
+        // Queues the changes this subscriber has not received yet, as many as the
+        // queue holds, and makes sure a sender task is running. The cursor only
+        // moves past what was queued, so the rest is read again later.
+        private void offer(List<UserChangeView> changes) {
+            for (UserChangeView change : changes) {
+                if (change.seq() > cursor) {
+                    if (!queue.offer(change)) {
+                        behind = true;
+                        break;
+                    }
+                    cursor = change.seq();
+                }
+            }
+            drain();
+        }
+
+        private void drain() {
+            if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::send);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        // The event id is the sequence number, so a reconnecting EventSource
+        // resumes from it through the Last-Event-ID header.
+        private void send() {
+            try {
+                UserChangeView change;
+                while ((change = queue.poll()) != null) {
+                    emitter.send(SseEmitter.event().id(String.valueOf(change.seq())).name("change").data(change));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away, or the emitter has already completed.
+                subscribers.remove(this);
+                queue.clear();
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // The queue is empty: read the changes that did not fit. Should the dispatcher set
+            // the flag just after this check, its next poll finds the room anyway.
+            if (behind) {
+                behind = false;
+                try {
+                    dispatcher.execute(ChangeFeedService.this::dispatch);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down.
+                }
+            }
+            // Changes queued after the last poll and before draining was reset.
+            drain();
+        }
+    }
+}
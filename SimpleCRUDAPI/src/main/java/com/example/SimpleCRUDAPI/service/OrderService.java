@@ -0,0 +1,54 @@
+package com.example.SimpleCRUDAPI.service;
+
+import com.example.SimpleCRUDAPI.dto.OrderView;
+import com.example.SimpleCRUDAPI.dto.UserView;
+import com.example.SimpleCRUDAPI.dto.UserWithOrders;
+import com.example.SimpleCRUDAPI.repository.OrderRepository;
+import com.example.SimpleCRUDAPI.repository.UserRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// The OrderService class reads orders. Every method runs a fixed number of
+// queries, whatever the number of users or orders involved.
+@Service
+public class OrderService {
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // Get one page of the orders of a user (one query)
+    @Transactional(readOnly = true)
+    public List<OrderView> getOrders(long userId, long after, int limit) {
+        return orderRepository.findViewsByUserId(userId, after, Limit.of(limit));
+    }
+
+    // Get one page of users, each with all of their orders. The page of users is
+    // read first (keyset pagination, in the database), then the orders of the
+    // whole page are read with a single IN query and grouped by user in memory:
+    // two queries per page instead of one per user. A fetch join would not do
+    // here, since Hibernate cannot apply the page limit in SQL to a query that
+    // joins a collection and would page in memory instead.
+    @Transactional(readOnly = true)
+    public List<UserWithOrders> getUsersWithOrders(long after, int limit) {
+        List<UserView> users = userRepository.findViewsAfter(after, Limit.of(limit));
+        if (users.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<OrderView>> ordersByUser = orderRepository
+                .findViewsByUserIds(users.stream().map(UserView::id).toList())
+                .stream()
+                .collect(Collectors.groupingBy(OrderView::userId));
+        return users.stream()
+                .map(user -> UserWithOrders.of(user, ordersByUser.getOrDefault(user.id(), List.of())))
+                .toList();
+    }
+}
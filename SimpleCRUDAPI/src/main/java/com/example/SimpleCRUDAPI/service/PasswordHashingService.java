@@ -0,0 +1,114 @@
+package com.example.SimpleCRUDAPI.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// The PasswordHashingService class runs BCrypt on its own small thread pool.
+// BCrypt is deliberately slow (tens of milliseconds of CPU per call), so running
+// it on the Tomcat request threads lets a burst of logins starve every other
+// endpoint. Here the pool is sized to the number of cores and its queue is
+// bounded: when the queue is full, new work is rejected straight away with a
+// RejectedExecutionException instead of piling up.
+@Service
+public class PasswordHashingService {
+
+    private final BCryptPasswordEncoder passwordEncoder;
+
+    private final ThreadPoolExecutor executor;
+
+    // How many hashing threads one batch may use at a time; the rest stay free for /login and /register.
+    private final int batchThreads;
+
+    // Time spent in BCrypt, per operation, and the number of rejected submissions.
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingService(BCryptPasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+            @Value("${password.hashing.threads:0}") int threads,
+            @Value("${password.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${password.hashing.batch-threads:0}") int batchThreads) {
+        this.passwordEncoder = passwordEncoder;
+        // 0 means "one thread per available core", since hashing is pure CPU work.
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        // 0 means "half of the pool".
+        this.batchThreads = Math.max(1, Math.min(poolSize, batchThreads > 0 ? batchThreads : poolSize / 2));
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        // Publishes the pool's queue size, active threads and completed tasks as executor.* meters.
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "password-hashing");
+        this.encodeTimer = hashingTimer(meterRegistry, "encode");
+        this.matchesTimer = hashingTimer(meterRegistry, "matches");
+        this.rejectedCounter = Counter.builder("password.hashing.rejected")
+                .description("Password hashing requests rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    private static Timer hashingTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("password.hashing")
+                .description("Time spent in BCrypt")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // Hash a raw password. Throws RejectedExecutionException if the queue is full.
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    // Check a raw password against a stored hash. Throws RejectedExecutionException if the queue is full.
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(() -> matchesTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    // Hash many raw passwords at once, e.g. for a batch import. The list is split
+    // into at most batch-threads slices, each hashed by one thread, so a batch
+    // never occupies the whole pool and interactive hashing keeps running next to
+    // it. Throws RejectedExecutionException if the queue is full.
+    public CompletableFuture<List<String>> encodeAll(List<String> rawPasswords) {
+        int sliceSize = Math.max(1, (rawPasswords.size() + batchThreads - 1) / batchThreads);
+        List<CompletableFuture<List<String>>> slices = new ArrayList<>();
+        for (int start = 0; start < rawPasswords.size(); start += sliceSize) {
+            List<String> slice = rawPasswords.subList(start, Math.min(start + sliceSize, rawPasswords.size()));
+            slices.add(submit(() -> slice.stream()
+                    .map(rawPassword -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)))
+                    .toList()));
+        }
+        return CompletableFuture.allOf(slices.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> slices.stream().flatMap(slice -> slice.join().stream()).toList());
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw e;
+        }
+    }
+
+    // Stop accepting work when the application shuts down.
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.SimpleCRUDAPI.service;
+
+import com.example.SimpleCRUDAPI.entity.RevokedToken;
+import com.example.SimpleCRUDAPI.repository.RevokedTokenRepository;
+import com.example.SimpleCRUDAPI.util.BloomFilter;
+import com.example.SimpleCRUDAPI.util.JwtTokenCache.VerifiedToken;
+import com.example.SimpleCRUDAPI.util.JwtUtil;
+import com.example.SimpleCRUDAPI.util.ThreadFactories;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The TokenRevocationService class revokes JWT tokens before they expire: one
+// token on logout, or every token of a user when their password changes.
+// Revocations are stored in the revoked_tokens table so every instance sees
+// them, but checking a token must not cost a query on every request. Each
+// instance therefore keeps a Bloom filter of the active revocation keys:
+//  - nearly every token misses the filter and is accepted without touching the database;
+//  - on a hit (a revoked token, or a rare false positive) the table is checked
+//    and the answer cached.
+// The filter is rebuilt from the table every rebuild-interval-ms, after expired
+// revocations have been deleted, so it only holds revocations of tokens that
+// could still be used. A revocation made on another instance takes effect here
+// at the next rebuild. The rebuilds start once the migrations are done, as
+// reported by the "migrations" health indicator: with migrations.mode=background
+// the table may not exist yet when the application is ready.
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private static final String TOKEN_PREFIX = "jti:";
+    private static final String USER_PREFIX = "user:";
+
+    // How long revocations made on this instance are re-added after a rebuild,
+    // in case the rebuild query did not see them yet (e.g. on a lagging replica).
+    private static final Duration LOCAL_REVOCATION_MARGIN = Duration.ofMinutes(1);
+
+    private static final Duration MIGRATIONS_CHECK_INTERVAL = Duration.ofSeconds(1);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final HealthIndicator migrations;
+
+    private final long expectedKeys;
+
+    private final double falsePositiveRate;
+
+    private final long rebuildIntervalMillis;
+
+    private volatile BloomFilter filter;
+
+    // Revocations made on this instance, with the System.nanoTime() they were made at.
+    private final Queue<LocalRevocation> localRevocations = new ConcurrentLinkedQueue<>();
+
+    // Exact answers for tokens that hit the filter, keyed by token id (or username and issue time).
+    private final Cache<String, Boolean> exactResults;
+
+    private final AtomicInteger activeRevocations = new AtomicInteger();
+
+    private final Counter filterMissCounter;
+    private final Counter revokedCounter;
+    private final Counter falsePositiveCounter;
+
+    private final boolean virtualThreads;
+
+    private ScheduledExecutorService rebuilder;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+            @Qualifier("migrations") HealthIndicator migrations, MeterRegistry meterRegistry,
+            @Value("${jwt.revocation.expected-keys:100000}") long expectedKeys,
+            @Value("${jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${jwt.revocation.rebuild-interval-ms:30000}") long rebuildIntervalMillis,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.migrations = migrations;
+        this.expectedKeys = expectedKeys;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildIntervalMillis = rebuildIntervalMillis;
+        this.virtualThreads = virtualThreads;
+        this.filter = new BloomFilter(expectedKeys, falsePositiveRate);
+        // A token revoked on another instance becomes visible here at the next rebuild, so caching a
+        // "not revoked" answer for the same time does not make revocations any slower to take effect.
+        this.exactResults = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMillis(rebuildIntervalMillis))
+                .build();
+        this.filterMissCounter = checkCounter(meterRegistry, "filter_miss");
+        this.revokedCounter = checkCounter(meterRegistry, "revoked");
+        this.falsePositiveCounter = checkCounter(meterRegistry, "false_positive");
+        Gauge.builder("jwt.revocations.active", activeRevocations, AtomicInteger::get)
+                .description("Revocations in the Bloom filter at the last rebuild")
+                .register(meterRegistry);
+    }
+
+    private static Counter checkCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("jwt.revocation.checks")
+                .description("Revocation checks by result: filter_miss (no query), revoked, or false_positive (queried, not revoked)")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuilder = Executors.newSingleThreadScheduledExecutor(ThreadFactories.named("token-revocations-", virtualThreads));
+        rebuilder.execute(this::startWhenMigrated);
+    }
+
+    // Checks the migrations every second until they are done, then starts the rebuilds.
+    private void startWhenMigrated() {
+        if (!Status.UP.equals(migrations.health().getStatus())) {
+            rebuilder.schedule(this::startWhenMigrated, MIGRATIONS_CHECK_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+            return;
+        }
+        rebuilder.scheduleWithFixedDelay(this::rebuild, 0, rebuildIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+        }
+    }
+
+    // Whether the token has been revoked. Only queries the database when the token hits the filter.
+    public boolean isRevoked(VerifiedToken token) {
+        BloomFilter current = filter;
+        String tokenKey = token.tokenId() != null ? TOKEN_PREFIX + token.tokenId() : null;
+        String userKey = USER_PREFIX + token.username();
+        boolean tokenHit = tokenKey != null && current.mightContain(tokenKey);
+        boolean userHit = current.mightContain(userKey);
+        if (!tokenHit && !userHit) {
+            filterMissCounter.increment();
+            return false;
+        }
+
+        String cacheKey = token.tokenId() != null ? token.tokenId() : token.username() + "@" + token.issuedAtMillis();
+        boolean revoked = exactResults.get(cacheKey,
+                key -> isRevokedInDatabase(token, tokenHit ? tokenKey : null, userHit ? userKey : null));
+        (revoked ? revokedCounter : falsePositiveCounter).increment();
+        return revoked;
+    }
+
+    private boolean isRevokedInDatabase(VerifiedToken token, String tokenKey, String userKey) {
+        if (tokenKey != null && revokedTokenRepository.existsById(tokenKey)) {
+            return true;
+        }
+        // The iat claim has a precision of one second, so a token issued in the
+        // same second as the password change is kept: otherwise the token the
+        // client gets by logging in again right after the change would be revoked too.
+        return userKey != null && revokedTokenRepository.findById(userKey)
+                .map(revocation -> token.issuedAtMillis() < revocation.getRevokedAt().truncatedTo(ChronoUnit.SECONDS).toEpochMilli())
+                .orElse(false);
+    }
+
+    // Revoke a single token, e.g. on logout. Tokens without an id (issued before
+    // ids were added) can only be revoked together with the other tokens of the user.
+    public void revokeToken(VerifiedToken token) {
+        if (token.tokenId() == null) {
+            revokeUser(token.username());
+            return;
+        }
+        String key = TOKEN_PREFIX + token.tokenId();
+        revokedTokenRepository.save(new RevokedToken(key, Instant.now(), Instant.ofEpochMilli(token.expiresAtMillis())));
+        afterCommit(() -> {
+            addLocal(key);
+            exactResults.invalidate(token.tokenId());
+        });
+    }
+
+    // Revoke every token of the user issued until now, e.g. after a password change.
+    // Joins the caller's transaction if there is one; the filter is only updated once it commits.
+    public void revokeUser(String username) {
+        String key = USER_PREFIX + username;
+        Instant now = Instant.now();
+        revokedTokenRepository.save(new RevokedToken(key, now, now.plus(JwtUtil.TOKEN_LIFETIME)));
+        afterCommit(() -> {
+            addLocal(key);
+            exactResults.invalidateAll();
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Queued before the filter is read. If a rebuild swaps its filter in after
+    // that read, the key went to the old filter, but the rebuild adds the queued
+    // revocations to the new filter after the swap, so it has the key too.
+    private void addLocal(String key) {
+        localRevocations.add(new LocalRevocation(key, System.nanoTime()));
+        filter.add(key);
+    }
+
+    // Deletes the expired revocations and builds a new filter from the rest. The
+    // new filter is swapped in first and the recent local revocations added to
+    // it afterwards, so a revocation made during the rebuild is never lost (see
+    // addLocal).
+    private void rebuild() {
+        try {
+            long started = System.nanoTime();
+            Instant now = Instant.now();
+            int pruned = revokedTokenRepository.deleteExpired(now);
+            List<String> keys = revokedTokenRepository.findActiveKeys(now);
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedKeys, 2L * keys.size()), falsePositiveRate);
+            keys.forEach(rebuilt::add);
+            filter = rebuilt;
+
+            long oldest = started - LOCAL_REVOCATION_MARGIN.toNanos();
+            localRevocations.removeIf(revocation -> revocation.addedAtNanos() - oldest < 0);
+            localRevocations.forEach(revocation -> rebuilt.add(revocation.key()));
+            activeRevocations.set(keys.size());
+            logger.debug("Rebuilt the token revocation filter with {} keys ({} expired revocations deleted)",
+                    keys.size(), pruned);
+        } catch (RuntimeException e) {
+            // Caught so the scheduled rebuilds keep running; the current filter stays in use.
+            logger.warn("Rebuilding the token revocation filter failed", e);
+        }
+    }
+
+    private record LocalRevocation(String key, long addedAtNanos) {
+    }
+}
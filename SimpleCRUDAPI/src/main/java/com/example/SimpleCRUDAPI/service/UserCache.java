@@ -0,0 +1,114 @@
+package com.example.SimpleCRUDAPI.service;
+
+import com.example.SimpleCRUDAPI.entity.User;
+import com.example.SimpleCRUDAPI.repository.UserRepository;
+import com.example.SimpleCRUDAPI.util.ReadWriteRoutingDataSource;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+// The UserCache class is a read-through cache in front of UserRepository for
+// lookups by id and by username. Users are stored once, keyed by id; the
+// username cache only maps a username to an id. Because a cached user is always
+// checked against the username it was looked up with, a rename or a delete can
+// never make a username lookup return the wrong user: only the id entry has to
+// be invalidated when a user changes.
+//
+// Entries are loaded from the primary database, never from a read replica: a
+// row read from a lagging replica right after a write would stay in the cache
+// for the whole TTL, old password hash included.
+@Component
+public class UserCache {
+
+    private final UserRepository userRepository;
+
+    private final Cache<Long, User> usersById;
+
+    private final Cache<String, Long> idsByUsername;
+
+    public UserCache(UserRepository userRepository, MeterRegistry meterRegistry,
+            @Value("${users.cache.maximum-size:10000}") long maximumSize,
+            @Value("${users.cache.ttl-seconds:600}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.usersById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.idsByUsername = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        // Publishes hit, miss, eviction and load duration meters for both caches.
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "users.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByUsername, "users.byUsername");
+    }
+
+    // Returns the user with the given id, loading it from the database on a miss.
+    // Users that do not exist are not cached. Caffeine does not accept null keys,
+    // so a null id is answered without going to the cache.
+    public User findById(Long id) {
+        if (id == null) {
+            return null;
+        }
+        return usersById.get(id, this::loadById);
+    }
+
+    // Returns the user with the given username, loading it from the database on a miss.
+    public User findByUsername(String username) {
+        if (username == null) {
+            return null;
+        }
+        Long id = idsByUsername.get(username, this::loadIdByUsername);
+        if (id == null) {
+            return null;
+        }
+        User user = findById(id);
+        if (user == null || !username.equals(user.getUsername())) {
+            // The user was renamed or deleted after the mapping was cached, so
+            // forget the mapping and look the username up again.
+            idsByUsername.invalidate(username);
+            id = idsByUsername.get(username, this::loadIdByUsername);
+            return id != null ? findById(id) : null;
+        }
+        return user;
+    }
+
+    private User loadById(Long id) {
+        return ReadWriteRoutingDataSource.onPrimary(() -> userRepository.findById(id).orElse(null));
+    }
+
+    private Long loadIdByUsername(String username) {
+        return ReadWriteRoutingDataSource.onPrimary(() -> userRepository.findIdByUsername(username));
+    }
+
+    // Removes a user from the cache. When called inside a transaction the entry is
+    // removed again after the transaction completes, so a read that runs between
+    // the write and the commit cannot put the old row back into the cache.
+    public void invalidate(Long id) {
+        usersById.invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    usersById.invalidate(id);
+                }
+            });
+        }
+    }
+
+    // Removes a username mapping from the cache, e.g. right after the user has been created.
+    public void invalidateUsername(String username) {
+        if (username != null) {
+            idsByUsername.invalidate(username);
+        }
+    }
+}
@@ -2,22 +2,50 @@ package com.example.SimpleCRUDAPI.service;
 
 // importing necessary libraries
 
+import com.example.SimpleCRUDAPI.dto.BatchItemResult;
+import com.example.SimpleCRUDAPI.dto.BatchResult;
+import com.example.SimpleCRUDAPI.dto.UserSummary;
+import com.example.SimpleCRUDAPI.dto.UserUpdateRequest;
+import com.example.SimpleCRUDAPI.dto.UserView;
+
 // import User entity class to use it in the service class to perform CRUD operations on the User entity by calling the methods from the UserRepository interface. User entity class is a simple POJO class that represents the User entity in the database.
 import com.example.SimpleCRUDAPI.entity.User;
+import com.example.SimpleCRUDAPI.entity.UserChange;
 
 // import UserRepository interface to use it in the service class to perform CRUD operations on the User entity. UserRepository interface extends the JpaRepository interface which provides CRUD operations for the User entity.
 import com.example.SimpleCRUDAPI.repository.UserRepository;
+import com.example.SimpleCRUDAPI.util.RequestContextExecutor;
 
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.Limit;
 
 // import the @Service annotation to indicate that the class is a service class which is crucial for the component scanning and helps in implementing the dependency injection design pattern. Because of the @Service annotation, the class is automatically registered as a bean in the Spring application context. beans are objects that form the backbone of the application and that are managed by the Spring IoC container. They are used to encapsulate the state of an application and are managed by the Spring IoC container.
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
-// The Optional class is a container object that may or may not contain a non-null value. If a value is present, isPresent() will return true and get() will return the value. The Optional class is used to represent a value which is either present or absent. The Optional class is used to avoid null pointer exceptions.
-import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 @Service
@@ -25,57 +53,339 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    // Single-user lookups go through the cache; every write invalidates it.
+    @Autowired
+    private UserCache userCache;
+
+    // Used by the batch methods to hash many passwords in parallel.
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    // A password change revokes every token of the user issued before it.
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    // Every write is recorded in the change feed, in the same transaction.
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    // Used by the batch methods to run every chunk in its own transaction.
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Batch chunks are written on Spring Boot's application task executor once
+    // their passwords are hashed, so neither a request thread nor a hashing
+    // thread waits for the database.
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private Executor applicationTaskExecutor;
+
+    // Number of users written per transaction by the batch methods. Hibernate's JDBC batch size is set to the same value.
+    @Value("${users.batch.size:500}")
+    private int batchSize;
+
     // Create a new user
+    @Transactional
     public User createUser(User user) {
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        changeFeedService.record(List.of(savedUser.getId()), UserChange.Operation.UPSERT);
+        userCache.invalidate(savedUser.getId());
+        userCache.invalidateUsername(savedUser.getUsername());
+        return savedUser;
     }
 
-    // Get all users
-    public List<User> getUsers() {
-        return userRepository.findAll();
+    // Get one page of users whose id is greater than `after` (keyset pagination)
+    @Transactional(readOnly = true)
+    public List<UserView> getUsers(long after, int limit) {
+        return userRepository.findViewsAfter(after, Limit.of(limit));
+    }
+
+    // Stream all users, one at a time, to the given consumer. The rows come off a database cursor, so memory use stays constant whatever the table size. The read-only transaction keeps the cursor open until the whole table has been handed to the consumer.
+    @Transactional(readOnly = true)
+    public void streamUsers(Consumer<UserView> consumer) {
+        try (Stream<UserView> users = userRepository.streamAllViews()) {
+            users.forEach(consumer);
+        }
+    }
+
+    // Search users whose username starts with `prefix`, ordered by username (keyset pagination: `after` is the last username of the previous page)
+    @Transactional(readOnly = true)
+    public List<UserSummary> searchUsers(String prefix, String after, int limit) {
+        return userRepository.searchByUsernameRange(prefix, prefixUpperBound(prefix), after, limit);
+    }
+
+    // The smallest string, in code point order, that is greater than every string starting with `prefix`: the prefix with its last code point incremented. In UTF-8, byte order and code point order are the same, so this is also the upper bound for the "C" collation.
+    static String prefixUpperBound(String prefix) {
+        int[] codePoints = prefix.codePoints().toArray();
+        for (int i = codePoints.length - 1; i >= 0; i--) {
+            int next = codePoints[i] + 1;
+            // Skip over the surrogate range, which is not a valid code point on its own.
+            if (next == Character.MIN_SURROGATE) {
+                next = Character.MAX_SURROGATE + 1;
+            }
+            if (next <= Character.MAX_CODE_POINT) {
+                codePoints[i] = next;
+                return new String(codePoints, 0, i + 1);
+            }
+        }
+        // Only reachable for a prefix made of U+10FFFF characters: no string is greater, so use the largest one.
+        return prefix + Character.toString(Character.MAX_CODE_POINT);
     }
 
     // Get a user by id
+    // Not transactional on purpose: a cache hit must not open a transaction. On a miss the repository query runs in its own read-only transaction.
     public User getUserById(Long id) {
-        // here, the Optional and User classes are used to return the user object if it is present in the database, otherwise it returns null.
-        Optional<User> user = userRepository.findById(id);
-        return user.orElse(null);
+        // here, the cache returns the user object if it is present in the database, otherwise it returns null. The database is only queried on a cache miss.
+        return userCache.findById(id);
     }
 
     // Get a user by username
     public User getUserByUsername(String username) {
-        return userRepository.findByUsername(username);
+        return userCache.findByUsername(username);
     }
 
     // Update a user
-    public User updateUser(Long id, User user) {
-        // here, the Optional and User classes are used to return the user object if it is present in the database, otherwise it returns null.
-        Optional<User> existingUser = userRepository.findById(id);
-        if (existingUser.isPresent()) {
-            // here, the .get() method is used to get the user object from the Optional class. It is inherited from the Optional class.
-            User updatedUser = existingUser.get();
-
-            // here, the setUsername and setPassword methods are used to update the username and password of the user object. they are inherited from the User class.
-            updatedUser.setUsername(user.getUsername());
-            updatedUser.setPassword(user.getPassword());
-            return userRepository.save(updatedUser);
-        } else {
-            return null;
+    // Only the fields that are not null are changed, and the row is updated with a
+    // single UPDATE statement instead of being loaded and saved back. Returns false
+    // if there is no user with this id. The password must already be encoded.
+    // When the password changes, the tokens issued to the user so far are
+    // revoked; the user is looked up first because the tokens carry the username
+    // the user had before this update.
+    @Transactional
+    public boolean updateUser(Long id, User user) {
+        if (user.getPassword() != null) {
+            userRepository.findById(id).ifPresent(existing -> tokenRevocationService.revokeUser(existing.getUsername()));
+        }
+        int updatedRows = userRepository.updatePartially(id, user.getUsername(), user.getPassword());
+        if (updatedRows > 0) {
+            changeFeedService.record(List.of(id), UserChange.Operation.UPSERT);
         }
+        userCache.invalidate(id);
+        return updatedRows > 0;
     }
 
     // Delete a user
+    // The row is removed with a single DELETE statement. Returns false if there is
+    // no user with this id.
+    @Transactional
     public boolean deleteUser(Long id) {
-        // here, the Optional and User classes are used to return the user object if it is present in the database, otherwise it returns null.
-        Optional<User> user = userRepository.findById(id);
-        if (user.isPresent()) {
-            // here, the deleteById method is used to delete the user object from the database. It is inherited from the JpaRepository interface.
-            userRepository.deleteById(id);
-            return true;
-        } else {
-            return false;
+        int deletedRows = userRepository.deleteByIdReturningCount(id);
+        if (deletedRows > 0) {
+            changeFeedService.record(List.of(id), UserChange.Operation.DELETE);
+        }
+        userCache.invalidate(id);
+        return deletedRows > 0;
+    }
+
+    // Create many users at once. The list is processed in chunks of `batchSize`:
+    // taken usernames are found with one query per chunk, the passwords of the
+    // chunk are hashed in parallel, and the new rows are inserted with JDBC
+    // batching in a single transaction. If a chunk fails, only that chunk is rolled
+    // back and its items are reported as FAILED.
+    // The chunks run one after the other without blocking the calling thread:
+    // each one starts when the previous one has been written, and the database
+    // work after hashing runs on the application task executor.
+    public CompletableFuture<BatchResult> createUsers(List<User> users) {
+        BatchItemResult[] results = new BatchItemResult[users.size()];
+        Set<String> seenUsernames = new HashSet<>();
+        Executor executor = RequestContextExecutor.capture(applicationTaskExecutor);
+        CompletableFuture<Void> chunks = CompletableFuture.completedFuture(null);
+        for (int start = 0; start < users.size(); start += batchSize) {
+            int chunkStart = start;
+            int chunkEnd = Math.min(start + batchSize, users.size());
+            chunks = chunks.thenCompose(ignored -> createChunk(users, chunkStart, chunkEnd, seenUsernames, results, executor));
+        }
+        return chunks.thenApply(ignored -> BatchResult.of(Arrays.asList(results)));
+    }
+
+    private CompletableFuture<Void> createChunk(List<User> users, int start, int end, Set<String> seenUsernames,
+            BatchItemResult[] results, Executor executor) {
+        List<String> usernames = users.subList(start, end).stream()
+                .map(User::getUsername).filter(Objects::nonNull).toList();
+        Set<String> takenUsernames = usernames.isEmpty() ? Set.of()
+                : new HashSet<>(userRepository.findExistingUsernames(usernames));
+
+        List<Integer> indexes = new ArrayList<>();
+        List<User> newUsers = new ArrayList<>();
+        for (int i = start; i < end; i++) {
+            User user = users.get(i);
+            if (isBlank(user.getUsername()) || isBlank(user.getPassword())) {
+                results[i] = BatchItemResult.of(i, null, BatchItemResult.Status.INVALID);
+            } else if (takenUsernames.contains(user.getUsername()) || !seenUsernames.add(user.getUsername())) {
+                results[i] = BatchItemResult.of(i, null, BatchItemResult.Status.CONFLICT);
+            } else {
+                // A new User is built so an id sent by the client is never used.
+                User newUser = new User();
+                newUser.setUsername(user.getUsername());
+                newUser.setPassword(user.getPassword());
+                indexes.add(i);
+                newUsers.add(newUser);
+            }
+        }
+        if (newUsers.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<List<String>> encodedPasswords;
+        try {
+            // Hash before the transaction starts, so no connection is held while BCrypt runs.
+            encodedPasswords = passwordHashingService.encodeAll(newUsers.stream().map(User::getPassword).toList());
+        } catch (RejectedExecutionException e) {
+            markFailed(indexes, results, e);
+            return CompletableFuture.completedFuture(null);
         }
+        return encodedPasswords.thenAcceptAsync(encoded -> {
+            for (int k = 0; k < newUsers.size(); k++) {
+                newUsers.get(k).setPassword(encoded.get(k));
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                userRepository.saveAll(newUsers);
+                // The ids are known once the users are persisted: they come from the sequence, not from the INSERT.
+                changeFeedService.record(newUsers.stream().map(User::getId).toList(), UserChange.Operation.UPSERT);
+            });
+            for (int k = 0; k < newUsers.size(); k++) {
+                User newUser = newUsers.get(k);
+                results[indexes.get(k)] = BatchItemResult.of(indexes.get(k), newUser.getId(), BatchItemResult.Status.CREATED);
+                userCache.invalidateUsername(newUser.getUsername());
+            }
+        }, executor).exceptionally(e -> {
+            markFailed(indexes, results, e);
+            return null;
+        });
     }
 
-    
+    // Update many users at once, in chunks of `batchSize`. Each chunk loads its
+    // users with one query and writes the changes with JDBC batching in a single
+    // transaction. Null fields in an update are left unchanged. Like createUsers,
+    // the chunks run one after the other without blocking the calling thread.
+    public CompletableFuture<BatchResult> updateUsers(List<UserUpdateRequest> updates) {
+        BatchItemResult[] results = new BatchItemResult[updates.size()];
+        Executor executor = RequestContextExecutor.capture(applicationTaskExecutor);
+        CompletableFuture<Void> chunks = CompletableFuture.completedFuture(null);
+        for (int start = 0; start < updates.size(); start += batchSize) {
+            int chunkStart = start;
+            int chunkEnd = Math.min(start + batchSize, updates.size());
+            chunks = chunks.thenCompose(ignored -> updateChunk(updates, chunkStart, chunkEnd, results, executor));
+        }
+        return chunks.thenApply(ignored -> BatchResult.of(Arrays.asList(results)));
+    }
+
+    private CompletableFuture<Void> updateChunk(List<UserUpdateRequest> updates, int start, int end,
+            BatchItemResult[] results, Executor executor) {
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = start; i < end; i++) {
+            if (updates.get(i).id() == null) {
+                results[i] = BatchItemResult.of(i, null, BatchItemResult.Status.INVALID);
+            } else {
+                indexes.add(i);
+            }
+        }
+        if (indexes.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // Hash the new passwords before the transaction starts, so no connection is held while BCrypt runs.
+        List<Integer> passwordIndexes = indexes.stream().filter(i -> updates.get(i).password() != null).toList();
+        CompletableFuture<List<String>> hashing;
+        try {
+            hashing = passwordIndexes.isEmpty() ? CompletableFuture.completedFuture(List.of())
+                    : passwordHashingService.encodeAll(passwordIndexes.stream().map(i -> updates.get(i).password()).toList());
+        } catch (RejectedExecutionException e) {
+            markFailed(indexes, results, e);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return hashing.thenAcceptAsync(encoded -> {
+            Map<Integer, String> encodedPasswords = new HashMap<>();
+            for (int k = 0; k < passwordIndexes.size(); k++) {
+                encodedPasswords.put(passwordIndexes.get(k), encoded.get(k));
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<Long> updatedIds = new LinkedHashSet<>();
+                Map<Long, User> existingUsers = userRepository
+                        .findAllById(indexes.stream().map(i -> updates.get(i).id()).toList()).stream()
+                        .collect(Collectors.toMap(User::getId, Function.identity()));
+                for (int i : indexes) {
+                    UserUpdateRequest update = updates.get(i);
+                    User user = existingUsers.get(update.id());
+                    if (user == null) {
+                        results[i] = BatchItemResult.of(i, update.id(), BatchItemResult.Status.NOT_FOUND);
+                        continue;
+                    }
+                    if (encodedPasswords.containsKey(i)) {
+                        tokenRevocationService.revokeUser(user.getUsername());
+                        user.setPassword(encodedPasswords.get(i));
+                    }
+                    if (update.username() != null) {
+                        user.setUsername(update.username());
+                    }
+                    userCache.invalidate(update.id());
+                    updatedIds.add(update.id());
+                    results[i] = BatchItemResult.of(i, update.id(), BatchItemResult.Status.UPDATED);
+                }
+                // The changes are flushed as batched UPDATE statements before the change feed takes its lock.
+                changeFeedService.record(updatedIds, UserChange.Operation.UPSERT);
+            });
+        }, executor).exceptionally(e -> {
+            markFailed(indexes, results, e);
+            return null;
+        });
+    }
+
+    // Delete many users at once, in chunks of `batchSize`. Each chunk finds which
+    // ids exist with one query and removes them with a single DELETE statement.
+    public BatchResult deleteUsers(List<Long> ids) {
+        BatchItemResult[] results = new BatchItemResult[ids.size()];
+        for (int start = 0; start < ids.size(); start += batchSize) {
+            deleteChunk(ids, start, Math.min(start + batchSize, ids.size()), results);
+        }
+        return BatchResult.of(Arrays.asList(results));
+    }
+
+    private void deleteChunk(List<Long> ids, int start, int end, BatchItemResult[] results) {
+        List<Long> chunkIds = ids.subList(start, end).stream().filter(Objects::nonNull).distinct().toList();
+        Set<Long> deletedIds = new HashSet<>();
+        try {
+            if (!chunkIds.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    deletedIds.addAll(userRepository.findExistingIds(chunkIds));
+                    if (!deletedIds.isEmpty()) {
+                        userRepository.deleteAllByIdInBatch(deletedIds);
+                        changeFeedService.record(deletedIds, UserChange.Operation.DELETE);
+                        deletedIds.forEach(userCache::invalidate);
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            List<Integer> indexes = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                indexes.add(i);
+            }
+            markFailed(indexes, results, e);
+            return;
+        }
+        for (int i = start; i < end; i++) {
+            Long id = ids.get(i);
+            BatchItemResult.Status status = id == null ? BatchItemResult.Status.INVALID
+                    : deletedIds.contains(id) ? BatchItemResult.Status.DELETED : BatchItemResult.Status.NOT_FOUND;
+            results[i] = BatchItemResult.of(i, id, status);
+        }
+    }
+
+    // Marks every item of a failed chunk as FAILED with the reason.
+    private static void markFailed(List<Integer> indexes, BatchItemResult[] results, Throwable e) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+        String message = cause instanceof RejectedExecutionException
+                ? "Server is busy, please try again later"
+                : "Chunk rolled back: " + cause.getMessage();
+        for (int i : indexes) {
+            BatchItemResult previous = results[i];
+            results[i] = BatchItemResult.failed(i, previous != null ? previous.id() : null, message);
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
 }
@@ -0,0 +1,149 @@
+package com.example.SimpleCRUDAPI.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+
+@Component
+// The JwtTokenCache class remembers tokens that have already been validated by
+// JwtUtil. Clients send the same bearer token on every request, so instead of
+// decoding the token, parsing its JSON and recomputing the HMAC each time, we
+// look up the result of the first validation. Each entry is evicted at the
+// token's own expiration time, so an expired token is never served from the cache.
+public class JwtTokenCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtTokenCache.class);
+
+    // Upper bound for how long a token stays cached, used when the token has no expiration claim.
+    private static final Duration MAX_TTL = JwtUtil.TOKEN_LIFETIME;
+
+    private final JwtUtil jwtUtil;
+
+    // The cache is keyed by a SHA-256 digest of the token so the raw token is never kept as a map key.
+    private final Cache<String, VerifiedToken> cache;
+
+    // Outcomes of full validations (cache misses): valid, expired, bad_signature or invalid.
+    private final Counter validCounter;
+    private final Counter expiredCounter;
+    private final Counter badSignatureCounter;
+    private final Counter invalidCounter;
+
+    public JwtTokenCache(JwtUtil jwtUtil, MeterRegistry meterRegistry,
+            @Value("${jwt.cache.maximum-size:100000}") long maximumSize) {
+        this.jwtUtil = jwtUtil;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                // Every entry gets its own lifetime: the time left until the token expires.
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String digest, VerifiedToken token, long currentTime) {
+                        return token.timeToLive().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String digest, VerifiedToken token, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String digest, VerifiedToken token, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        // Publishes hit, miss, eviction and size meters under the "jwt.tokens" cache name.
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.tokens");
+        this.validCounter = validationCounter(meterRegistry, "valid");
+        this.expiredCounter = validationCounter(meterRegistry, "expired");
+        this.badSignatureCounter = validationCounter(meterRegistry, "bad_signature");
+        this.invalidCounter = validationCounter(meterRegistry, "invalid");
+    }
+
+    private static Counter validationCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("jwt.validations")
+                .description("JWT validations that were not answered from the cache, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    // The validateToken method returns the username of a valid token, or null if
+    // the token is invalid or expired. Only the first request with a given token
+    // pays for the full validation; invalid tokens are never cached.
+    public String validateToken(String token) {
+        VerifiedToken verified = verify(token);
+        return verified != null ? verified.username() : null;
+    }
+
+    // Same as validateToken, but returns everything the filter needs to check
+    // whether the token has been revoked: its id, owner and issue time.
+    public VerifiedToken verify(String token) {
+        return cache.get(digest(token), digest -> parse(token));
+    }
+
+    private VerifiedToken parse(String token) {
+        try {
+            Claims claims = jwtUtil.parseClaims(token);
+            long maxExpiresAt = System.currentTimeMillis() + MAX_TTL.toMillis();
+            Date expiration = claims.getExpiration();
+            long expiresAt = expiration != null ? Math.min(expiration.getTime(), maxExpiresAt) : maxExpiresAt;
+            Date issuedAt = claims.getIssuedAt();
+            validCounter.increment();
+            return new VerifiedToken(claims.getSubject(), claims.getId(), issuedAt != null ? issuedAt.getTime() : 0,
+                    expiresAt);
+        } catch (ExpiredJwtException e) {
+            expiredCounter.increment();
+            logger.debug("Expired token: {}", e.getMessage());
+            return null;
+        } catch (SignatureException e) {
+            badSignatureCounter.increment();
+            logger.debug("Token with a bad signature: {}", e.getMessage());
+            return null;
+        } catch (JwtException | IllegalArgumentException e) {
+            // IllegalArgumentException is thrown for an empty token.
+            invalidCounter.increment();
+            logger.debug("Invalid token: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java runtime is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // The result of a successful validation: who the token belongs to, its id
+    // (null for tokens issued before ids were added), when it was issued and when
+    // it expires.
+    public record VerifiedToken(String username, String tokenId, long issuedAtMillis, long expiresAtMillis) {
+
+        Duration timeToLive() {
+            return Duration.ofMillis(Math.max(0, expiresAtMillis - System.currentTimeMillis()));
+        }
+    }
+}
@@ -5,6 +5,9 @@ import java.util.Date;
 import io.jsonwebtoken.*;
 // import the Keys class from the io.jsonwebtoken.security package to generate the secret key for the JWT token.
 import io.jsonwebtoken.security.Keys;
+// Import the SLF4J Logger to report invalid tokens at DEBUG level without slowing down the request path.
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 // Import the Component annotation from the org.springframework.stereotype package to mark the class as a Spring component.
 import org.springframework.stereotype.Component;
 // Import the Value annotation from the org.springframework.beans.factory.annotation package to load the secret key from the application.properties file.
@@ -13,17 +16,27 @@ import org.springframework.beans.factory.annotation.Value;
 import jakarta.annotation.PostConstruct;
 // Import Key from the java.security package to generate the secret key for the JWT token.
 import java.security.Key;
+import java.time.Duration;
+import java.util.UUID;
 
 @Component
 // The JwtUtil class is a utility class that provides methods to generate and
 // validate JWT tokens.
 public class JwtUtil {
+    private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
+
+    // How long a token is valid after it is issued. Revocations are kept for the same time.
+    public static final Duration TOKEN_LIFETIME = Duration.ofHours(1);
+
     // Load the secret key from the application.properties file and store it in the secret attribute.
     @Value("${jwt.secret}")
     private String secret;
 
     private Key key;
 
+    // The parser is immutable and thread-safe, so it is built once here instead of on every request.
+    private JwtParser parser;
+
     @PostConstruct
     // The @PostConstruct annotation is used on a method that needs to be executed
     // after dependency injection is done to perform any initialization. In this case, we use the @PostConstruct annotation to initialize the secret key.
@@ -32,11 +45,19 @@ public class JwtUtil {
         // method.
         // The Keys.hmacShaKeyFor method generates a secret key for the HMAC-SHA algorithm from the specified secret string. getBytes() method converts the secret string to a byte array.
         this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        // The Jwts.parserBuilder method creates a JwtParser that validates tokens
+        // with the secret key. build() method returns a JwtParser instance which can
+        // be used to parse and validate the token.
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
     }
 
     // The createToken method generates a JWT token for the specified username and
-    // expiration time.
+    // expiration time. Every token gets a random id (the jti claim), so a single
+    // token can be revoked on logout.
     public String createToken(String username) {
+        long now = System.currentTimeMillis();
         // The JwtBuilder class is used to create a JWT token. We set the subject of the
         // token to the username and the expiration time to 1 hour from the current
         // time.
@@ -44,32 +65,31 @@ public class JwtUtil {
                 .setSubject(username)
                 // claim() method adds a custom claim to the JWT token. In this case, we add the roles claim with the value "user". Claim is a piece of information added to the JWT token payload.
                 .claim("roles", "user")
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 3600000))
+                .setId(UUID.randomUUID().toString())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + TOKEN_LIFETIME.toMillis()))
                 .signWith(key)
                 .compact();
                 // compact() method returns the JWT token as a string.
     }
 
+    // The parseClaims method checks the signature and the expiration of the JWT
+    // token and returns its claims. If the token is invalid or expired, a
+    // JwtException is thrown.
+    public Claims parseClaims(String token) {
+        // parseClaimsJws() method parses the token and getBody() method returns the
+        // body of the token which contains the claims.
+        return parser.parseClaimsJws(token).getBody();
+    }
+
     // The validateToken method validates the JWT token and returns the username if
     // the token is valid.
     public String validateToken(String token) {
         try {
-            // The Jwts.parserBuilder method creates a new JwtParser instance to parse and
-            // validate the token. We set the signing key to the secret key and parse the
-            // token to extract the subject (username).
-            return Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    // build() method returns a JwtParser instance which can be used to parse and validate the token.
-                    .build()
-                    // parseClaimsJws() method parses the token
-                    .parseClaimsJws(token)
-                    // getBody() method returns the body of the token which contains the claims.
-                    .getBody()
-                    // getSubject() method returns the subject (username) from the claims.
-                    .getSubject();
+            // getSubject() method returns the subject (username) from the claims.
+            return parseClaims(token).getSubject();
         } catch (JwtException e) {
-            System.out.println("Invalid or expired token " + e.getMessage());
+            logger.debug("Invalid or expired token {}", e.getMessage());
             // If the token is invalid or expired, a JwtException is thrown. In this case,
             // we return null.
             return null;
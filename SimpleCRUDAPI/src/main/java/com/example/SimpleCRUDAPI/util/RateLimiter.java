@@ -0,0 +1,82 @@
+package com.example.SimpleCRUDAPI.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The RateLimiter class is a token bucket per key (a username or a client IP).
+// Each bucket is a single AtomicLong holding the "theoretical arrival time" of
+// the next request (the GCRA form of a token bucket): a request is allowed when
+// that time is no further ahead of now than the burst allows, and it moves the
+// time forward by one emission interval. Taking a token is one compare-and-set,
+// so concurrent requests never block each other.
+//
+// The buckets live in a Caffeine cache bounded by maximumSize. A bucket that has
+// not been touched for burst * interval is full again, so it expires after that
+// idle time without forgetting anything, and memory only holds active clients.
+public class RateLimiter {
+
+    // Nanoseconds between two tokens, and how far ahead of now a bucket may run (burst tokens).
+    private final long intervalNanos;
+    private final long toleranceNanos;
+
+    private final Cache<String, AtomicLong> buckets;
+
+    private final Counter allowedCounter;
+    private final Counter rejectedCounter;
+
+    public RateLimiter(String endpoint, String keyType, int requestsPerMinute, int burst, long maximumKeys,
+            MeterRegistry meterRegistry) {
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, requestsPerMinute);
+        this.toleranceNanos = intervalNanos * Math.max(1, burst);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess(Duration.ofNanos(toleranceNanos))
+                .recordStats()
+                .build();
+        // Publishes the number of tracked keys and evictions under e.g. "rate.limit.login.ip".
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "rate.limit." + endpoint + "." + keyType);
+        this.allowedCounter = requestCounter(meterRegistry, endpoint, keyType, "allowed");
+        this.rejectedCounter = requestCounter(meterRegistry, endpoint, keyType, "rejected");
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String endpoint, String keyType,
+            String outcome) {
+        return Counter.builder("rate.limit.requests")
+                .description("Requests checked by the rate limiter, by endpoint, key type and outcome")
+                .tag("endpoint", endpoint)
+                .tag("key", keyType)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    // Takes a token from the bucket of the given key. Returns 0 when the request
+    // is allowed, or else how many nanoseconds the client has to wait before the
+    // next token is available.
+    public long tryAcquire(String key) {
+        long now = System.nanoTime();
+        // A new bucket is full: its arrival time is now.
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long arrival = bucket.get();
+            // An idle bucket is full: it starts again from now, not from its old arrival time.
+            // nanoTime values may wrap around, so they are only compared through their difference.
+            long next = (arrival - now > 0 ? arrival : now) + intervalNanos;
+            long wait = next - now - toleranceNanos;
+            if (wait > 0) {
+                rejectedCounter.increment();
+                return wait;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                allowedCounter.increment();
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.SimpleCRUDAPI.util;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The ReadReplicas class holds the connection pools of the read replicas and
+// keeps track of which ones are healthy. A background thread opens a connection
+// on every replica at a fixed interval; a replica that fails the check, or
+// fails to hand out a connection to a request, is skipped until it passes the
+// check again. Replicas start unhealthy, so no read goes to a replica before it
+// has answered once.
+public class ReadReplicas implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadReplicas.class);
+
+    // Seconds Connection.isValid may take before the replica counts as unhealthy.
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final List<Replica> replicas;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final ScheduledExecutorService healthChecker;
+
+    public ReadReplicas(List<HikariDataSource> pools, Duration healthCheckInterval, MeterRegistry meterRegistry,
+            boolean virtualThreads) {
+        this.replicas = pools.stream().map(Replica::new).toList();
+        for (Replica replica : replicas) {
+            // 1 while the replica receives reads, 0 while they fall back to the primary.
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .description("Whether the read replica is used for read-only transactions")
+                    .tag("pool", replica.pool.getPoolName())
+                    .register(meterRegistry);
+        }
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(ThreadFactories.named("replica-health-", virtualThreads));
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, 0, healthCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // The replica pools, in the order of datasource.replicas.urls.
+    public List<HikariDataSource> pools() {
+        return replicas.stream().map(replica -> replica.pool).toList();
+    }
+
+    // Returns the next healthy replica in round-robin order, or null when none is healthy.
+    public HikariDataSource pick() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica.pool;
+            }
+        }
+        return null;
+    }
+
+    // Called when a replica could not hand out a connection. Reads skip it until the next successful health check.
+    public void markUnhealthy(HikariDataSource pool) {
+        for (Replica replica : replicas) {
+            if (replica.pool == pool) {
+                setHealthy(replica, false);
+            }
+        }
+    }
+
+    private void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.pool.getConnection()) {
+                healthy = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                healthy = false;
+            }
+            setHealthy(replica, healthy);
+        }
+    }
+
+    private static void setHealthy(Replica replica, boolean healthy) {
+        if (replica.healthy != healthy) {
+            replica.healthy = healthy;
+            if (healthy) {
+                logger.info("Read replica {} is healthy, sending read-only transactions to it", replica.pool.getPoolName());
+            } else {
+                logger.warn("Read replica {} is unhealthy, its reads fall back to the primary", replica.pool.getPoolName());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private static final class Replica {
+
+        private final HikariDataSource pool;
+
+        private volatile boolean healthy;
+
+        private Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.SimpleCRUDAPI.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// The ReadWriteRoutingDataSource class sends the connections of read-only
+// transactions (@Transactional(readOnly = true)) to a read replica and every
+// other connection to the primary. It has to sit behind a
+// LazyConnectionDataSourceProxy: the transaction manager asks for a connection
+// before the read-only flag of the transaction is published, and the proxy
+// delays the real getConnection until the first statement runs.
+//
+// Read-your-writes: a client (the authenticated user, or else the client IP)
+// that has just run a read-write transaction reads from the primary for the
+// length of the stickiness window, so it never sees a replica that has not
+// caught up with its own write yet. Writes made outside of a request pin every
+// client to the primary for the window.
+//
+// Reads whose result outlives the request, such as loads into a cache, must not
+// see a lagging replica whoever the client is: they run through onPrimary.
+public class ReadWriteRoutingDataSource extends AbstractDataSource {
+
+    // Stickiness key used when a write cannot be tied to a client.
+    private static final String EVERYONE = "*";
+
+    // Set on the current thread while onPrimary runs.
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final HikariDataSource primary;
+
+    private final ReadReplicas replicas;
+
+    // Clients that wrote within the stickiness window. Only the presence of a key matters.
+    private final Cache<String, Boolean> recentWriters;
+
+    // Connections handed out, by route.
+    private final Counter primaryCounter;
+    private final Counter replicaCounter;
+    private final Counter stickyCounter;
+    private final Counter fallbackCounter;
+    private final Counter pinnedCounter;
+
+    public ReadWriteRoutingDataSource(HikariDataSource primary, ReadReplicas replicas, Duration stickinessWindow,
+            MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(stickinessWindow)
+                .build();
+        this.primaryCounter = routeCounter(meterRegistry, "primary");
+        this.replicaCounter = routeCounter(meterRegistry, "replica");
+        this.stickyCounter = routeCounter(meterRegistry, "sticky");
+        this.fallbackCounter = routeCounter(meterRegistry, "fallback");
+        this.pinnedCounter = routeCounter(meterRegistry, "pinned");
+    }
+
+    private static Counter routeCounter(MeterRegistry meterRegistry, String route) {
+        return Counter.builder("datasource.routing")
+                .description("Connections handed out by the read/write routing DataSource, by route: primary (read-write), "
+                        + "replica, sticky (read-only on the primary after a recent write), fallback (no healthy replica) "
+                        + "or pinned (read-only on the primary through onPrimary)")
+                .tag("route", route)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                recentWriters.put(clientKey(), Boolean.TRUE);
+            }
+            primaryCounter.increment();
+            return primary.getConnection();
+        }
+
+        if (PRIMARY_ONLY.get() != null) {
+            pinnedCounter.increment();
+            return primary.getConnection();
+        }
+
+        if (recentWriters.getIfPresent(EVERYONE) != null || recentWriters.getIfPresent(clientKey()) != null) {
+            stickyCounter.increment();
+            return primary.getConnection();
+        }
+
+        HikariDataSource replica = replicas.pick();
+        if (replica != null) {
+            try {
+                Connection connection = replica.getConnection();
+                replicaCounter.increment();
+                return connection;
+            } catch (SQLException e) {
+                replicas.markUnhealthy(replica);
+            }
+        }
+        fallbackCounter.increment();
+        return primary.getConnection();
+    }
+
+    // Runs a read on the primary even inside a read-only transaction, without
+    // making the client sticky. The connection has to be opened inside `read`,
+    // which is the case for a repository call that starts its own transaction.
+    // Without read replicas this simply runs `read`.
+    public static <T> T onPrimary(Supplier<T> read) {
+        if (PRIMARY_ONLY.get() != null) {
+            return read.get();
+        }
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            PRIMARY_ONLY.remove();
+        }
+    }
+
+    // Only used by code that passes its own credentials; it always gets a primary connection.
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    // unwrap is forwarded to the primary pool, so code looking for the HikariDataSource (the pool metrics) finds it.
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    // The user of the current request if it is authenticated, else the client IP.
+    private static String clientKey() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            return "ip:" + attributes.getRequest().getRemoteAddr();
+        }
+        return EVERYONE;
+    }
+
+}
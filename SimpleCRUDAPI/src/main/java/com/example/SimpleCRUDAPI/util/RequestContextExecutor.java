@@ -0,0 +1,49 @@
+package com.example.SimpleCRUDAPI.util;
+
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.Executor;
+
+// The RequestContextExecutor class runs tasks on another executor as if they
+// ran on the request thread that created it: the request attributes and the
+// logged-in user are captured when it is created and restored around every
+// task. Work continued on another thread after a password hash is therefore
+// still attributed to the right client, e.g. for read-your-writes routing.
+public final class RequestContextExecutor implements Executor {
+
+    private final Executor delegate;
+
+    private final RequestAttributes requestAttributes;
+
+    private final SecurityContext securityContext;
+
+    private RequestContextExecutor(Executor delegate) {
+        this.delegate = delegate;
+        this.requestAttributes = RequestContextHolder.getRequestAttributes();
+        this.securityContext = SecurityContextHolder.getContext();
+    }
+
+    // Captures the context of the calling thread, which should be the request thread.
+    public static Executor capture(Executor delegate) {
+        return new RequestContextExecutor(delegate);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        delegate.execute(() -> {
+            RequestAttributes previousAttributes = RequestContextHolder.getRequestAttributes();
+            SecurityContext previousContext = SecurityContextHolder.getContext();
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+            SecurityContextHolder.setContext(securityContext);
+            try {
+                task.run();
+            } finally {
+                RequestContextHolder.setRequestAttributes(previousAttributes);
+                SecurityContextHolder.setContext(previousContext);
+            }
+        });
+    }
+}
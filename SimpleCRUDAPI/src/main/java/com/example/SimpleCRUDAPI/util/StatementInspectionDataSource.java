@@ -0,0 +1,83 @@
+package com.example.SimpleCRUDAPI.util;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// The StatementInspectionDataSource class wraps the application DataSource and
+// times every statement that is executed through it. Connections and statements
+// are wrapped in JDK proxies: prepareStatement/prepareCall remember the SQL text,
+// and every execute* call is timed and reported to StatementStatistics.
+// unwrap() still reaches the real pool, so pool metrics keep working.
+public class StatementInspectionDataSource extends DelegatingDataSource {
+
+    private final StatementStatistics statistics;
+
+    public StatementInspectionDataSource(DataSource targetDataSource, StatementStatistics statistics) {
+        super(targetDataSource);
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return inspect(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return inspect(super.getConnection(username, password));
+    }
+
+    private Connection inspect(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    String name = method.getName();
+                    if (result instanceof CallableStatement statement && name.equals("prepareCall")) {
+                        return proxy(CallableStatement.class, statement, (String) args[0]);
+                    }
+                    if (result instanceof PreparedStatement statement && name.equals("prepareStatement")) {
+                        return proxy(PreparedStatement.class, statement, (String) args[0]);
+                    }
+                    if (result instanceof Statement statement && name.equals("createStatement")) {
+                        return proxy(Statement.class, statement, null);
+                    }
+                    return result;
+                });
+    }
+
+    // `sql` is null for plain Statements, whose SQL is passed to execute*.
+    private <T extends Statement> T proxy(Class<T> type, T statement, String sql) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+            String executedSql = sql != null ? sql
+                    : args != null && args.length > 0 && args[0] instanceof String text ? text : "<batch>";
+            long start = System.nanoTime();
+            try {
+                return invoke(statement, method, args);
+            } finally {
+                statistics.record(executedSql, System.nanoTime() - start);
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.SimpleCRUDAPI.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+// The StatementStatistics class receives the SQL text and the execution time of
+// every JDBC statement. It replaces logging every statement and every bind value:
+//  - statements slower than the threshold are logged by the "sql.slow" logger
+//  - a configurable fraction of the other statements is logged by "sql.sample"
+//  - count, total time, max and a latency histogram are kept per statement
+//    shape (the SQL with whitespace and IN lists normalised), and can be read
+//    from the /actuator/sqlstats endpoint
+// The normalised shape is cached per SQL text, so the regular expressions only
+// run the first time a statement is seen, not on every execution.
+// Bind values are never logged.
+public class StatementStatistics {
+
+    private static final Logger slowLogger = LoggerFactory.getLogger("sql.slow");
+
+    private static final Logger sampleLogger = LoggerFactory.getLogger("sql.sample");
+
+    // Upper bounds of the histogram buckets, in microseconds; the last bucket has no upper bound.
+    private static final long[] BUCKET_BOUNDS_MICROS = {
+            100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000, 1_000_000, 5_000_000
+    };
+
+    // Shape used once maxShapes distinct shapes have been seen, so memory stays bounded.
+    private static final String OTHER_SHAPE = "<other>";
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+
+    private final ConcurrentHashMap<String, ShapeStatistics> shapes = new ConcurrentHashMap<>();
+
+    // SQL text -> shape. Bounded, since SQL built with inlined values could otherwise fill it up.
+    private final Cache<String, String> shapeCache;
+
+    private final long slowThresholdNanos;
+
+    private final double sampleRate;
+
+    private final int maxShapes;
+
+    public StatementStatistics(long slowThresholdMillis, double sampleRate, int maxShapes, int shapeCacheSize) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        this.sampleRate = sampleRate;
+        this.maxShapes = maxShapes;
+        this.shapeCache = Caffeine.newBuilder().maximumSize(shapeCacheSize).build();
+    }
+
+    public void record(String sql, long elapsedNanos) {
+        String shape = shapeCache.get(sql, StatementStatistics::shape);
+        ShapeStatistics statistics = shapes.get(shape);
+        if (statistics == null) {
+            statistics = shapes.size() < maxShapes
+                    ? shapes.computeIfAbsent(shape, key -> new ShapeStatistics())
+                    : shapes.computeIfAbsent(OTHER_SHAPE, key -> new ShapeStatistics());
+        }
+        statistics.record(elapsedNanos);
+
+        if (elapsedNanos >= slowThresholdNanos) {
+            slowLogger.warn("Slow statement ({} ms): {}", TimeUnit.NANOSECONDS.toMillis(elapsedNanos), shape);
+        } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            sampleLogger.info("Sampled statement ({} us): {}", TimeUnit.NANOSECONDS.toMicros(elapsedNanos), shape);
+        }
+    }
+
+    // One entry per statement shape, slowest total time first.
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        shapes.forEach((shape, statistics) -> result.add(statistics.toMap(shape)));
+        result.sort(Comparator.comparingDouble(entry -> -((Double) entry.get("totalMs"))));
+        return result;
+    }
+
+    public void reset() {
+        shapes.clear();
+    }
+
+    private static String shape(String sql) {
+        String shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        return IN_LIST.matcher(shape).replaceAll("(?, ...)");
+    }
+
+    private static final class ShapeStatistics {
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MICROS.length + 1];
+
+        private ShapeStatistics() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        private void record(long elapsedNanos) {
+            count.increment();
+            totalNanos.add(elapsedNanos);
+            maxNanos.accumulate(elapsedNanos);
+            long micros = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MICROS.length && micros > BUCKET_BOUNDS_MICROS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+        }
+
+        private Map<String, Object> toMap(String shape) {
+            long calls = count.sum();
+            double totalMs = totalNanos.sum() / 1_000_000.0;
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < buckets.length; i++) {
+                String label = i < BUCKET_BOUNDS_MICROS.length ? "le_" + BUCKET_BOUNDS_MICROS[i] + "us" : "gt_"
+                        + BUCKET_BOUNDS_MICROS[BUCKET_BOUNDS_MICROS.length - 1] + "us";
+                histogram.put(label, buckets[i].sum());
+            }
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("sql", shape);
+            map.put("count", calls);
+            map.put("totalMs", totalMs);
+            map.put("meanMs", calls > 0 ? totalMs / calls : 0.0);
+            map.put("maxMs", maxNanos.get() / 1_000_000.0);
+            map.put("histogram", histogram);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.SimpleCRUDAPI.util;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ThreadFactory;
+
+// The ThreadFactories class creates the thread factories of the background
+// executors. With spring.threads.virtual.enabled=true their tasks, which mostly
+// wait on the database or on clients, run on virtual threads like the requests
+// do. CPU-bound pools such as password hashing keep platform threads.
+public final class ThreadFactories {
+
+    private ThreadFactories() {
+    }
+
+    // Threads are named <prefix><n>, e.g. change-feed-1, in both modes.
+    public static ThreadFactory named(String prefix, boolean virtualThreads) {
+        if (virtualThreads) {
+            return Thread.ofVirtual().name(prefix, 1).factory();
+        }
+        return new CustomizableThreadFactory(prefix);
+    }
+}
@@ -0,0 +1 @@
+DROP SEQUENCE IF EXISTS users_seq;
\ No newline at end of file
@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS idx_orders_user_id ON orders (user_id, id);
@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS idx_users_username_c ON users (username COLLATE "C");
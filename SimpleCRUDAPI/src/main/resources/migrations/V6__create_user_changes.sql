@@ -0,0 +1,12 @@
+CREATE SEQUENCE IF NOT EXISTS user_changes_seq;
+CREATE TABLE IF NOT EXISTS user_changes (
+    user_id BIGINT PRIMARY KEY,
+    seq BIGINT NOT NULL UNIQUE,
+    operation VARCHAR(8) NOT NULL,
+    changed_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+INSERT INTO user_changes (user_id, seq, operation, changed_at)
+SELECT id, ROW_NUMBER() OVER (ORDER BY id), 'UPSERT', now() FROM users
+ON CONFLICT (user_id) DO NOTHING;
+SELECT setval('user_changes_seq', GREATEST(last_seq, 1), last_seq > 0)
+FROM (SELECT COALESCE(MAX(seq), 0) AS last_seq FROM user_changes) AS current_seq;
@@ -0,0 +1,2 @@
+DROP TABLE IF EXISTS user_changes;
+DROP SEQUENCE IF EXISTS user_changes_seq;
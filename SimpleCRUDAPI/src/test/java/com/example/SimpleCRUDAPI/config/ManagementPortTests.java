@@ -0,0 +1,79 @@
+package com.example.SimpleCRUDAPI.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The actuator endpoints are served on the management port only, never on the public one.
+// Tests turn off the metrics exporters unless @AutoConfigureObservability is present.
+@AutoConfigureObservability
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ManagementPortTests {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Test
+    void prometheusIsNotServedOnThePublicPort() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+        assertThat(response.getStatusCode()).isNotEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void prometheusAndProbesAreServedOnTheManagementPort() {
+        ResponseEntity<String> prometheus = restTemplate.getForEntity(management("/actuator/prometheus"), String.class);
+        assertThat(prometheus.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(prometheus.getBody()).contains("http_server_requests");
+
+        ResponseEntity<String> liveness = restTemplate.getForEntity(management("/actuator/health/liveness"), String.class);
+        assertThat(liveness.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void sqlStatsResetNeedsATokenOnTheManagementPort() {
+        assertThat(delete(management("/actuator/sqlstats"), null).getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+
+        String token = registerAndLogin("user-" + UUID.randomUUID(), "password-1");
+        assertThat(delete("/actuator/sqlstats", token).getStatusCode().is2xxSuccessful()).isFalse();
+        assertThat(delete(management("/actuator/sqlstats"), token).getStatusCode().is2xxSuccessful()).isTrue();
+    }
+
+    private String management(String path) {
+        return "http://localhost:" + managementPort + path;
+    }
+
+    private String registerAndLogin(String username, String password) {
+        Map<String, String> credentials = Map.of("username", username, "password", password);
+        assertThat(restTemplate.postForEntity("/register", credentials, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.CREATED);
+        ResponseEntity<String> login = restTemplate.postForEntity("/login", credentials, String.class);
+        assertThat(login.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return login.getBody();
+    }
+
+    private ResponseEntity<String> delete(String url, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        if (token != null) {
+            headers.set(HttpHeaders.AUTHORIZATION, token);
+        }
+        return restTemplate.exchange(url, HttpMethod.DELETE, new HttpEntity<>(headers), String.class);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.SimpleCRUDAPI.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MigrationRunnerTests {
+
+    @TempDir
+    Path migrationsDir;
+
+    @Test
+    void migrationIsSkippedWhenTheAppliedVersionIsTheLatestFile() throws IOException {
+        Files.writeString(migrationsDir.resolve("V1__create_schema.sql"), "CREATE TABLE a (id INT);");
+        Files.writeString(migrationsDir.resolve("V2__add_b.sql"), "CREATE TABLE b (id INT);");
+        Files.writeString(migrationsDir.resolve("V2__add_b_rollback.sql"), "DROP TABLE b;");
+        // Stands in for Migration_Tool's history table.
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE history (version VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO history VALUES ('1'), ('2')");
+
+        MigrationRunner runner = new MigrationRunner(dataSource, "blocking", migrationsDir.toString(),
+                "SELECT MAX(version) FROM history");
+        runner.afterPropertiesSet();
+
+        assertThat(runner.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(runner.health().getDetails()).containsEntry("version", 2L).containsEntry("skipped", true);
+    }
+}
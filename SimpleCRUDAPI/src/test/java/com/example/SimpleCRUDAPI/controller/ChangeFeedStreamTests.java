@@ -0,0 +1,93 @@
+package com.example.SimpleCRUDAPI.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// GET /users/changes/stream over a real connection, with a feed several times
+// longer than the queue of a subscriber (1000 changes by default).
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ChangeFeedStreamTests {
+
+    private static final int CHANGES = 2500;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    @Timeout(60)
+    void aSubscriberFromTheStartReceivesTheWholeFeed() throws Exception {
+        String token = registerAndLogin("user-" + UUID.randomUUID(), "password-1");
+        // DELETE entries of users that never existed, old enough for any gap between them to have settled.
+        long firstUserId = 1_000_000_000L + Math.abs(UUID.randomUUID().getMostSignificantBits() % 1_000_000_000L);
+        Timestamp changedAt = Timestamp.from(Instant.now().minus(Duration.ofHours(1)));
+        jdbcTemplate.batchUpdate("insert into user_changes (user_id, seq, operation, changed_at) "
+                        + "values (?, nextval('user_changes_seq'), 'DELETE', ?)",
+                LongStream.rangeClosed(1, CHANGES).mapToObj(i -> new Object[] {firstUserId + i, changedAt}).toList());
+        List<Long> seqs = jdbcTemplate.queryForList("select seq from user_changes where user_id > ? and user_id <= ?",
+                Long.class, firstUserId, firstUserId + CHANGES);
+        assertThat(seqs).hasSize(CHANGES);
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users/changes/stream?since=0"))
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .build();
+        Set<Long> received = new HashSet<>();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+            assertThat(response.statusCode()).isEqualTo(HttpStatus.OK.value());
+            try (Stream<String> lines = response.body()) {
+                // Read until every inserted change has arrived; a dropped subscriber ends the stream early.
+                Iterator<String> iterator = lines.iterator();
+                while (!received.containsAll(seqs) && iterator.hasNext()) {
+                    String line = iterator.next();
+                    if (line.startsWith("id:")) {
+                        received.add(Long.parseLong(line.substring(3).trim()));
+                    }
+                }
+            }
+        }
+        assertThat(received).containsAll(seqs);
+    }
+
+    private String registerAndLogin(String username, String password) {
+        Map<String, String> credentials = Map.of("username", username, "password", password);
+        assertThat(restTemplate.postForEntity("/register", credentials, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.CREATED);
+        ResponseEntity<String> login = restTemplate.postForEntity("/login", credentials, String.class);
+        assertThat(login.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return login.getBody();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.SimpleCRUDAPI.controller;
+
+import com.example.SimpleCRUDAPI.entity.User;
+import com.example.SimpleCRUDAPI.repository.UserRepository;
+import com.example.SimpleCRUDAPI.util.JwtUtil;
+import com.example.SimpleCRUDAPI.util.StatementStatistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Counts the SQL statements the order endpoints run, with the application's own
+// StatementStatistics (every statement on the "dataSource" bean goes through it).
+// The counts must not grow with the number of users or orders: no N+1 queries.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class OrderQueryCountTests {
+
+    // Order ids are assigned by hand, since orders are only ever read by the application.
+    private static long nextOrderId = 1_000_000;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private StatementStatistics statementStatistics;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Test
+    void userOrdersCostOneQueryWhateverTheNumberOfOrders() {
+        User few = createUser(3);
+        User many = createUser(30);
+        String token = "Bearer " + jwtUtil.createToken(few.getUsername());
+
+        // The first request also loads the user into the user cache.
+        assertThat(statementsRunBy("/users/" + few.getId() + "/orders", token)).isLessThanOrEqualTo(2);
+        assertThat(statementsRunBy("/users/" + many.getId() + "/orders", token)).isLessThanOrEqualTo(2);
+
+        assertThat(statementsRunBy("/users/" + few.getId() + "/orders", token)).isEqualTo(1);
+        assertThat(statementsRunBy("/users/" + many.getId() + "/orders?limit=100", token)).isEqualTo(1);
+    }
+
+    @Test
+    void usersWithOrdersCostTwoQueriesPerPage() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            users.add(createUser(i % 4));
+        }
+        String token = "Bearer " + jwtUtil.createToken(users.get(0).getUsername());
+        long after = users.get(0).getId() - 1;
+
+        assertThat(statementsRunBy("/users/with-orders?after=" + after + "&limit=2", token)).isEqualTo(2);
+        assertThat(statementsRunBy("/users/with-orders?after=" + after + "&limit=12", token)).isEqualTo(2);
+    }
+
+    private User createUser(int orders) {
+        User user = new User();
+        user.setUsername("user-" + UUID.randomUUID());
+        user.setPassword("not-a-hash");
+        user = userRepository.save(user);
+        for (int i = 0; i < orders; i++) {
+            jdbcTemplate.update("insert into orders (id, user_id, product_name, quantity) values (?, ?, ?, ?)",
+                    nextOrderId++, user.getId(), "product-" + i, i + 1);
+        }
+        return user;
+    }
+
+    // Runs a GET and returns the number of statements it executed. The revocation list is
+    // rebuilt in the background, so its statements are left out.
+    private long statementsRunBy(String path, String token) {
+        statementStatistics.reset();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AUTHORIZATION, token);
+        ResponseEntity<String> response = restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers),
+                String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return statementStatistics.snapshot().stream()
+                .filter(entry -> !((String) entry.get("sql")).contains("revoked_tokens"))
+                .mapToLong(entry -> (Long) entry.get("count"))
+                .sum();
+    }
+}
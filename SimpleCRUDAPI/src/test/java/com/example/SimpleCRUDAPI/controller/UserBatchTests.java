@@ -0,0 +1,134 @@
+package com.example.SimpleCRUDAPI.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The batch endpoints with chunks of two items, so a few items are enough to
+// span several transactions. A username longer than the column makes the INSERT
+// or UPDATE of its chunk fail in the database.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "users.batch.size=2")
+@ActiveProfiles("test")
+class UserBatchTests {
+
+    private static final String TOO_LONG = "x".repeat(300);
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void aFailedChunkRollsBackAloneOnCreate() {
+        String token = registerAndLogin("user-" + UUID.randomUUID(), "password-1");
+        String prefix = "batch-" + UUID.randomUUID() + "-";
+        List<Map<String, String>> users = List.of(
+                Map.of("username", prefix + 1, "password", "password-1"),
+                Map.of("username", prefix + 1, "password", "password-2"),
+                Map.of("username", TOO_LONG, "password", "password-3"),
+                Map.of("username", prefix + 2, "password", "password-4"),
+                Map.of("username", prefix + 3, "password", ""));
+
+        Map<?, ?> created = exchange("/users/batch", HttpMethod.POST, users, token).getBody();
+        assertThat(statuses(created)).containsExactly("CREATED", "CONFLICT", "FAILED", "FAILED", "INVALID");
+        assertThat(created.get("succeeded")).isEqualTo(1);
+        assertThat(created.get("failed")).isEqualTo(4);
+        assertThat(item(created, 2).get("message")).asString().startsWith("Chunk rolled back");
+
+        // The valid user of the failed chunk was rolled back with it; the other chunks were committed.
+        assertThat(login(prefix + 1, "password-1")).isEqualTo(HttpStatus.OK);
+        assertThat(login(prefix + 2, "password-4")).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void aFailedChunkRollsBackAloneOnUpdate() {
+        String token = registerAndLogin("user-" + UUID.randomUUID(), "password-1");
+        String prefix = "batch-" + UUID.randomUUID() + "-";
+        List<Long> ids = createdIds(token, prefix + 1, prefix + 2, prefix + 3);
+
+        List<Map<String, Object>> updates = List.of(
+                Map.of("id", ids.get(0), "username", prefix + "1-renamed"),
+                Map.of("id", Long.MAX_VALUE, "username", prefix + "nobody"),
+                Map.of("id", ids.get(1), "username", prefix + "2-renamed"),
+                Map.of("id", ids.get(2), "username", TOO_LONG),
+                Map.of("username", prefix + "no-id"));
+
+        Map<?, ?> updated = exchange("/users/batch", HttpMethod.PUT, updates, token).getBody();
+        assertThat(statuses(updated)).containsExactly("UPDATED", "NOT_FOUND", "FAILED", "FAILED", "INVALID");
+
+        assertThat(login(prefix + "1-renamed", "password")).isEqualTo(HttpStatus.OK);
+        // The rename in the failed chunk was rolled back.
+        assertThat(login(prefix + 2, "password")).isEqualTo(HttpStatus.OK);
+        assertThat(login(prefix + "2-renamed", "password")).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void deleteReportsUnknownAndRepeatedIds() {
+        String token = registerAndLogin("user-" + UUID.randomUUID(), "password-1");
+        String prefix = "batch-" + UUID.randomUUID() + "-";
+        List<Long> ids = createdIds(token, prefix + 1, prefix + 2);
+
+        List<Long> deletes = Arrays.asList(ids.get(0), Long.MAX_VALUE, ids.get(1), ids.get(1), null);
+        Map<?, ?> deleted = exchange("/users/batch", HttpMethod.DELETE, deletes, token).getBody();
+        assertThat(statuses(deleted)).containsExactly("DELETED", "NOT_FOUND", "DELETED", "DELETED", "INVALID");
+
+        Map<?, ?> again = exchange("/users/batch", HttpMethod.DELETE, ids, token).getBody();
+        assertThat(statuses(again)).containsExactly("NOT_FOUND", "NOT_FOUND");
+    }
+
+    // Creates users with the password "password" and returns their ids.
+    private List<Long> createdIds(String token, String... usernames) {
+        List<Map<String, String>> users = Arrays.stream(usernames)
+                .map(username -> Map.of("username", username, "password", "password"))
+                .toList();
+        Map<?, ?> created = exchange("/users/batch", HttpMethod.POST, users, token).getBody();
+        assertThat(statuses(created)).containsOnly("CREATED");
+        return ((List<?>) created.get("items")).stream()
+                .map(item -> ((Number) ((Map<?, ?>) item).get("id")).longValue())
+                .toList();
+    }
+
+    private ResponseEntity<Map> exchange(String path, HttpMethod method, Object body, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(HttpHeaders.AUTHORIZATION, token);
+        ResponseEntity<Map> response = restTemplate.exchange(path, method, new HttpEntity<>(body, headers), Map.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return response;
+    }
+
+    private static Map<?, ?> item(Map<?, ?> batchResult, int index) {
+        return (Map<?, ?>) ((List<?>) batchResult.get("items")).get(index);
+    }
+
+    private static List<Object> statuses(Map<?, ?> batchResult) {
+        return ((List<?>) batchResult.get("items")).stream().<Object>map(item -> ((Map<?, ?>) item).get("status")).toList();
+    }
+
+    private HttpStatus login(String username, String password) {
+        Map<String, String> credentials = Map.of("username", username, "password", password);
+        return HttpStatus.valueOf(restTemplate.postForEntity("/login", credentials, String.class).getStatusCode().value());
+    }
+
+    private String registerAndLogin(String username, String password) {
+        Map<String, String> credentials = Map.of("username", username, "password", password);
+        assertThat(restTemplate.postForEntity("/register", credentials, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.CREATED);
+        ResponseEntity<String> login = restTemplate.postForEntity("/login", credentials, String.class);
+        assertThat(login.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return login.getBody();
+    }
+}
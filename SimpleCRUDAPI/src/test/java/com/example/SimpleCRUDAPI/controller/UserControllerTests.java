@@ -0,0 +1,275 @@
+package com.example.SimpleCRUDAPI.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// End-to-end tests over HTTP. The endpoints returning a CompletableFuture
+// answer in an ASYNC dispatch, which only a real server reproduces faithfully.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class UserControllerTests {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void usersArePagedWithACursorUntilTheEndOfTheList() {
+        String prefix = "page-" + UUID.randomUUID() + "-";
+        String token = registerAndLogin(prefix + 1, "password-1");
+        registerAndLogin(prefix + 2, "password-2");
+        registerAndLogin(prefix + 3, "password-3");
+
+        // Each cursor is the last id of its page and the next page starts right after it.
+        List<Long> ids = new ArrayList<>();
+        List<String> usernames = new ArrayList<>();
+        String cursor = "0";
+        ResponseEntity<Map[]> page;
+        do {
+            page = getPage("/users?limit=2&after=" + cursor, token);
+            for (Map<?, ?> user : page.getBody()) {
+                ids.add(((Number) user.get("id")).longValue());
+                usernames.add((String) user.get("username"));
+            }
+            String next = page.getHeaders().getFirst("X-Next-Cursor");
+            if (next != null) {
+                assertThat(page.getBody()).hasSize(2);
+                assertThat(Long.parseLong(next)).isEqualTo(ids.get(ids.size() - 1));
+            }
+            cursor = next;
+        } while (cursor != null);
+
+        // The page without a cursor is the end of the list: it is not full.
+        assertThat(page.getBody().length).isLessThan(2);
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+        assertThat(usernames).containsSubsequence(prefix + 1, prefix + 2, prefix + 3);
+    }
+
+    @Test
+    void streamWritesOneUserPerLine() throws Exception {
+        String prefix = "stream-" + UUID.randomUUID() + "-";
+        String token = registerAndLogin(prefix + 1, "password-1");
+        registerAndLogin(prefix + 2, "password-2");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AUTHORIZATION, token);
+        ResponseEntity<String> response = restTemplate.exchange("/users/stream", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType().toString()).startsWith("application/x-ndjson");
+
+        List<Long> ids = new ArrayList<>();
+        List<String> usernames = new ArrayList<>();
+        for (String line : response.getBody().split("\n")) {
+            Map<String, Object> user = objectMapper.readValue(line, new TypeReference<>() {});
+            assertThat(user).containsOnlyKeys("id", "username", "version");
+            ids.add(((Number) user.get("id")).longValue());
+            usernames.add((String) user.get("username"));
+        }
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+        assertThat(usernames).containsSubsequence(prefix + 1, prefix + 2);
+    }
+
+    @Test
+    void unchangedPageAndUserAreAnsweredWith304() {
+        String username = "user-" + UUID.randomUUID();
+        String token = registerAndLogin(username, "password-1");
+        long id = userId(username, token);
+        String pagePath = "/users?limit=1&after=" + (id - 1);
+        String userPath = "/users/" + id;
+
+        ResponseEntity<String> page = get(pagePath, token, null);
+        ResponseEntity<String> user = get(userPath, token, null);
+        String pageETag = page.getHeaders().getETag();
+        String userETag = user.getHeaders().getETag();
+        assertThat(pageETag).isNotNull();
+        assertThat(userETag).isNotNull();
+
+        ResponseEntity<String> unchangedPage = get(pagePath, token, pageETag);
+        assertThat(unchangedPage.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(unchangedPage.getBody()).isNull();
+        assertThat(unchangedPage.getHeaders().getFirst("X-Next-Cursor")).isEqualTo(String.valueOf(id));
+        ResponseEntity<String> unchangedUser = get(userPath, token, userETag);
+        assertThat(unchangedUser.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(unchangedUser.getBody()).isNull();
+
+        // An update bumps the version, and with it both ETags.
+        assertThat(put(userPath, Map.of("username", username + "-renamed"), token).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+        ResponseEntity<String> changedPage = get(pagePath, token, pageETag);
+        assertThat(changedPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(changedPage.getHeaders().getETag()).isNotEqualTo(pageETag);
+        ResponseEntity<String> changedUser = get(userPath, token, userETag);
+        assertThat(changedUser.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(changedUser.getHeaders().getETag()).isNotEqualTo(userETag);
+        assertThat(changedUser.getBody()).contains(username + "-renamed").doesNotContain("password");
+    }
+
+    @Test
+    void updateWithValidTokenIsAuthorized() {
+        String username = "user-" + UUID.randomUUID();
+        String token = registerAndLogin(username, "password-1");
+        long id = userId(username, token);
+
+        // Without a password the future is already complete, but it is still dispatched again.
+        ResponseEntity<String> usernameUpdate = put("/users/" + id, Map.of("username", username + "-renamed"), token);
+        assertThat(usernameUpdate.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        // A new password is hashed first, so the response is written in the ASYNC dispatch.
+        // It is sent last because a password change revokes the token.
+        ResponseEntity<String> passwordUpdate = put("/users/" + id, Map.of("password", "password-2"), token);
+        assertThat(passwordUpdate.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void usernameOnlyUpdateKeepsThePassword() {
+        String username = "user-" + UUID.randomUUID();
+        String token = registerAndLogin(username, "password-1");
+        long id = userId(username, token);
+
+        assertThat(put("/users/" + id, Map.of("username", username + "-renamed"), token).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+        Map<String, String> credentials = Map.of("username", username + "-renamed", "password", "password-1");
+        assertThat(restTemplate.postForEntity("/login", credentials, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void updateAndDeleteReportUnknownIds() {
+        String username = "user-" + UUID.randomUUID();
+        String token = registerAndLogin(username, "password-1");
+        long id = userId(username, token);
+
+        assertThat(put("/users/" + Long.MAX_VALUE, Map.of("username", "nobody"), token).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(delete("/users/" + Long.MAX_VALUE, token).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        assertThat(delete("/users/" + id, token).getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(delete("/users/" + id, token).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(put("/users/" + id, Map.of("username", username), token).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void updateWithoutTokenIsRejected() {
+        ResponseEntity<String> response = put("/users/1", Map.of("username", "nobody"), null);
+        assertThat(response.getStatusCode().value()).isIn(401, 403);
+    }
+
+    @Test
+    void registerAndLoginWithoutUsernameAreBadRequests() {
+        Map<String, String> credentials = Map.of("password", "password-1");
+        assertThat(restTemplate.postForEntity("/register", credentials, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(restTemplate.postForEntity("/login", credentials, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void batchCreateAndUpdateReportEveryItem() {
+        String token = registerAndLogin("user-" + UUID.randomUUID(), "password-1");
+        String prefix = "batch-" + UUID.randomUUID() + "-";
+        List<Map<String, String>> users = List.of(
+                Map.of("username", prefix + 1, "password", "password-1"),
+                Map.of("username", prefix + 2, "password", "password-2"),
+                Map.of("username", prefix + 1, "password", "password-3"));
+
+        Map<?, ?> created = exchange("/users/batch", HttpMethod.POST, users, token).getBody();
+        assertThat(statuses(created)).containsExactly("CREATED", "CREATED", "CONFLICT");
+
+        List<?> items = (List<?>) created.get("items");
+        Object firstId = ((Map<?, ?>) items.get(0)).get("id");
+        List<Map<String, Object>> updates = List.of(Map.of("id", firstId, "password", "password-4"),
+                Map.of("id", Long.MAX_VALUE, "username", prefix + 3));
+        Map<?, ?> updated = exchange("/users/batch", HttpMethod.PUT, updates, token).getBody();
+        assertThat(statuses(updated)).containsExactly("UPDATED", "NOT_FOUND");
+    }
+
+    private ResponseEntity<Map[]> getPage(String path, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AUTHORIZATION, token);
+        ResponseEntity<Map[]> response = restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers),
+                Map[].class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return response;
+    }
+
+    private ResponseEntity<Map> exchange(String path, HttpMethod method, Object body, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(HttpHeaders.AUTHORIZATION, token);
+        ResponseEntity<Map> response = restTemplate.exchange(path, method, new HttpEntity<>(body, headers), Map.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return response;
+    }
+
+    private static List<Object> statuses(Map<?, ?> batchResult) {
+        return ((List<?>) batchResult.get("items")).stream().<Object>map(item -> ((Map<?, ?>) item).get("status")).toList();
+    }
+
+    private String registerAndLogin(String username, String password) {
+        Map<String, String> credentials = Map.of("username", username, "password", password);
+        assertThat(restTemplate.postForEntity("/register", credentials, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.CREATED);
+        ResponseEntity<String> login = restTemplate.postForEntity("/login", credentials, String.class);
+        assertThat(login.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return login.getBody();
+    }
+
+    private long userId(String username, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AUTHORIZATION, token);
+        ResponseEntity<Map[]> page = restTemplate.exchange("/users?limit=1000", HttpMethod.GET,
+                new HttpEntity<>(headers), Map[].class);
+        for (Map<?, ?> user : page.getBody()) {
+            if (username.equals(user.get("username"))) {
+                return ((Number) user.get("id")).longValue();
+            }
+        }
+        throw new AssertionError("User " + username + " is not listed");
+    }
+
+    private ResponseEntity<String> put(String path, Map<String, String> body, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (token != null) {
+            headers.set(HttpHeaders.AUTHORIZATION, token);
+        }
+        return restTemplate.exchange(path, HttpMethod.PUT, new HttpEntity<>(body, headers), String.class);
+    }
+
+    private ResponseEntity<String> get(String path, String token, String ifNoneMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AUTHORIZATION, token);
+        if (ifNoneMatch != null) {
+            headers.setIfNoneMatch(ifNoneMatch);
+        }
+        return restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
+    private ResponseEntity<String> delete(String path, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AUTHORIZATION, token);
+        return restTemplate.exchange(path, HttpMethod.DELETE, new HttpEntity<>(headers), String.class);
+    }
+}
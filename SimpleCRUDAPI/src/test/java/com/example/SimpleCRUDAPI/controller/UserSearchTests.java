@@ -0,0 +1,111 @@
+package com.example.SimpleCRUDAPI.controller;
+
+import com.example.SimpleCRUDAPI.dto.UserSummary;
+import com.example.SimpleCRUDAPI.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+
+// Walks GET /users/search page by page. H2 has no COLLATE on expressions, so the
+// range query of UserRepository runs here without it; H2 compares strings in
+// code point order for these usernames, like the "C" collation does.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class UserSearchTests {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoSpyBean
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void searchWithoutCollation() {
+        doAnswer(invocation -> jdbcTemplate.query(
+                "select id, username from users where username >= ? and username < ? and username > ? order by username limit ?",
+                (rs, row) -> summary(rs.getLong("id"), rs.getString("username")),
+                invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2),
+                invocation.<Integer>getArgument(3)))
+                .when(userRepository).searchByUsernameRange(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void searchIsPagedWithAnEncodedUsernameCursor() {
+        // Characters that must be escaped in a query string, and one outside ASCII.
+        String prefix = "search-" + UUID.randomUUID() + "-";
+        String token = registerAndLogin(prefix + "1 a&b", "password-1");
+        registerAndLogin(prefix + "2+ü=%", "password-2");
+        registerAndLogin(prefix + "3/x", "password-3");
+        registerAndLogin("other-" + UUID.randomUUID(), "password-4");
+
+        String search = "/users/search?limit=2&prefix=" + URLEncoder.encode(prefix, StandardCharsets.UTF_8);
+        ResponseEntity<Map[]> first = getPage(search, token);
+        assertThat(first.getBody()).extracting(user -> user.get("username"))
+                .containsExactly(prefix + "1 a&b", prefix + "2+ü=%");
+        assertThat(first.getBody()[0]).containsOnlyKeys("id", "username");
+        String cursor = first.getHeaders().getFirst("X-Next-Cursor");
+        assertThat(cursor).isEqualTo(URLEncoder.encode(prefix + "2+ü=%", StandardCharsets.UTF_8));
+
+        // The cursor is appended to the query string as it is.
+        ResponseEntity<Map[]> second = getPage(search + "&after=" + cursor, token);
+        assertThat(second.getBody()).extracting(user -> user.get("username")).containsExactly(prefix + "3/x");
+        assertThat(second.getHeaders().getFirst("X-Next-Cursor")).isNull();
+    }
+
+    // The URI is already encoded, so it is sent without being encoded a second time.
+    private ResponseEntity<Map[]> getPage(String uri, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AUTHORIZATION, token);
+        ResponseEntity<Map[]> response = restTemplate.exchange(URI.create(uri), HttpMethod.GET,
+                new HttpEntity<>(headers), Map[].class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return response;
+    }
+
+    private String registerAndLogin(String username, String password) {
+        Map<String, String> credentials = Map.of("username", username, "password", password);
+        assertThat(restTemplate.postForEntity("/register", credentials, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.CREATED);
+        ResponseEntity<String> login = restTemplate.postForEntity("/login", credentials, String.class);
+        assertThat(login.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return login.getBody();
+    }
+
+    private static UserSummary summary(long id, String username) {
+        return new UserSummary() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getUsername() {
+                return username;
+            }
+        };
+    }
+}
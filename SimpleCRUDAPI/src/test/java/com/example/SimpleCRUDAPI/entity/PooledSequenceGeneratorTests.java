@@ -0,0 +1,48 @@
+package com.example.SimpleCRUDAPI.entity;
+
+import com.example.SimpleCRUDAPI.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The allocation size of users_seq comes from the users.id.allocation-size setting.
+@SpringBootTest(properties = "spring.jpa.properties.users.id.allocation-size=7")
+@ActiveProfiles("test")
+class PooledSequenceGeneratorTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void allocationSizeIsReadFromTheSetting() {
+        // Hibernate created the sequence, with the allocation size as its increment.
+        Long increment = jdbcTemplate.queryForObject(
+                "SELECT increment FROM information_schema.sequences WHERE sequence_name = 'users_seq'", Long.class);
+        assertThat(increment).isEqualTo(7);
+
+        // Eight users need two calls to the sequence, so the sequence moves by two increments.
+        long before = jdbcTemplate.queryForObject("SELECT base_value FROM information_schema.sequences "
+                + "WHERE sequence_name = 'users_seq'", Long.class);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            User user = new User();
+            user.setUsername("sequence-" + System.nanoTime() + "-" + i);
+            user.setPassword("password");
+            users.add(user);
+        }
+        userRepository.saveAll(users);
+        long after = jdbcTemplate.queryForObject("SELECT base_value FROM information_schema.sequences "
+                + "WHERE sequence_name = 'users_seq'", Long.class);
+        assertThat(after - before).isEqualTo(14);
+    }
+}
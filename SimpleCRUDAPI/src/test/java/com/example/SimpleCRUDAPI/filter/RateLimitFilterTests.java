@@ -0,0 +1,65 @@
+package com.example.SimpleCRUDAPI.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTests {
+
+    // Generous IP limits, and a username bucket holding a single login.
+    private final RateLimitFilter filter = new RateLimitFilter(new ObjectMapper(), new SimpleMeterRegistry(),
+            true, 1000, 4096, 600, 100, 1, 1, 600, 100, 1, 1);
+
+    // Every request comes from a new address, so only the username limit can reject it.
+    private int clients;
+
+    @Test
+    void usernameLimitAppliesToChunkedBodies() throws Exception {
+        String body = "{\"username\":\"alice\",\"password\":\"secret\"}";
+        MockFilterChain first = new MockFilterChain();
+        assertThat(login(body, true, first).getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(first.getRequest().getInputStream().readAllBytes()).isEqualTo(body.getBytes(StandardCharsets.UTF_8));
+        assertThat(first.getRequest().getReader().readLine()).isEqualTo(body);
+
+        MockFilterChain second = new MockFilterChain();
+        assertThat(login(body, true, second).getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(second.getRequest()).isNull();
+    }
+
+    @Test
+    void oversizedBodiesAreRejected() throws Exception {
+        String body = "{\"username\":\"bob\",\"password\":\"" + "x".repeat(5000) + "\"}";
+        MockFilterChain chunked = new MockFilterChain();
+        assertThat(login(body, true, chunked).getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        assertThat(chunked.getRequest()).isNull();
+
+        MockFilterChain withLength = new MockFilterChain();
+        assertThat(login(body, false, withLength).getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        assertThat(withLength.getRequest()).isNull();
+    }
+
+    // A chunked body has no Content-Length.
+    private MockHttpServletResponse login(String body, boolean chunked, MockFilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setServletPath("/login");
+        request.setRemoteAddr("10.0.0." + ++clients);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(chunked ? new HttpServletRequestWrapper(request) {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        } : request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.SimpleCRUDAPI.service;
+
+import com.example.SimpleCRUDAPI.dto.UserChangeView;
+import com.example.SimpleCRUDAPI.dto.UserChanges;
+import com.example.SimpleCRUDAPI.entity.UserChange;
+import com.example.SimpleCRUDAPI.repository.UserChangeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChangeFeedServiceTests {
+
+    private static final Instant OLD = Instant.now().minus(Duration.ofMinutes(1));
+
+    private final UserChangeRepository repository = mock(UserChangeRepository.class);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // No polling during the test, a 5 second settle time and room for two queued changes per subscriber.
+    private final ChangeFeedService changeFeed = new ChangeFeedService(repository, meterRegistry,
+            3_600_000, 60_000, 5_000, 2, false);
+
+    @AfterEach
+    void shutdown() {
+        changeFeed.shutdown();
+    }
+
+    @Test
+    void readersStopAtARecentGap() {
+        when(repository.findChangesSince(anyLong(), any()))
+                .thenReturn(List.of(change(1, OLD), change(2, OLD), change(4, Instant.now()), change(5, Instant.now())));
+
+        UserChanges changes = changeFeed.getChanges(0, 100);
+        assertThat(changes.changes()).extracting(UserChangeView::seq).containsExactly(1L, 2L);
+        assertThat(changes.next()).isEqualTo(2);
+    }
+
+    @Test
+    void readersPassAGapOnceTheChangeAfterItHasSettled() {
+        when(repository.findChangesSince(anyLong(), any()))
+                .thenReturn(List.of(change(3, OLD), change(7, OLD), change(8, Instant.now())));
+
+        UserChanges changes = changeFeed.getChanges(0, 100);
+        assertThat(changes.changes()).extracting(UserChangeView::seq).containsExactly(3L, 7L, 8L);
+        assertThat(changes.next()).isEqualTo(8);
+    }
+
+    @Test
+    void aSubscriberWithAFullQueueIsReadForAgainOnceItsSenderHasCaughtUp() {
+        List<UserChangeView> feed = LongStream.rangeClosed(1, 5).mapToObj(seq -> change(seq, OLD)).toList();
+        when(repository.findChangesSince(anyLong(), any())).thenAnswer(invocation -> feed.stream()
+                .filter(change -> change.seq() > invocation.<Long>getArgument(0))
+                .toList());
+
+        changeFeed.subscribe(0);
+        // Two changes at a time: the cursor only moves past what fitted in the queue.
+        verify(repository, timeout(2000)).findChangesSince(eq(2L), any());
+        verify(repository, timeout(2000)).findChangesSince(eq(4L), any());
+        assertThat(meterRegistry.get("users.changes.subscribers").gauge().value()).isEqualTo(1);
+    }
+
+    private static UserChangeView change(long seq, Instant changedAt) {
+        return new UserChangeView(seq, seq, UserChange.Operation.UPSERT, "user-" + seq, 0L, changedAt);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.SimpleCRUDAPI.service;
+
+import com.example.SimpleCRUDAPI.entity.RevokedToken;
+import com.example.SimpleCRUDAPI.repository.RevokedTokenRepository;
+import com.example.SimpleCRUDAPI.util.JwtTokenCache.VerifiedToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationServiceTests {
+
+    private final RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private volatile Health migrations = Health.up().build();
+
+    // Rebuilt every 100 ms, which is also how long exact answers are cached.
+    private final TokenRevocationService revocations = new TokenRevocationService(repository, () -> migrations,
+            meterRegistry, 1_000, 0.01, 100, false);
+
+    @AfterEach
+    void stop() {
+        revocations.stop();
+    }
+
+    @Test
+    void aRevokedTokenIsRevokedAndOthersMissTheFilter() {
+        VerifiedToken revoked = token("alice", "token-1");
+        when(repository.existsById("jti:token-1")).thenReturn(true);
+
+        revocations.revokeToken(revoked);
+        verify(repository).save(any(RevokedToken.class));
+        assertThat(revocations.isRevoked(revoked)).isTrue();
+        assertThat(revocations.isRevoked(token("alice", "token-2"))).isFalse();
+        assertThat(revocations.isRevoked(token("bob", "token-3"))).isFalse();
+
+        assertThat(checks("revoked")).isEqualTo(1);
+        assertThat(checks("filter_miss")).isEqualTo(2);
+        verify(repository, never()).existsById("jti:token-2");
+    }
+
+    @Test
+    void tokensIssuedBeforeAPasswordChangeAreRevoked() {
+        Instant changed = Instant.now();
+        when(repository.findById("user:alice"))
+                .thenReturn(Optional.of(new RevokedToken("user:alice", changed, changed.plus(Duration.ofHours(1)))));
+
+        revocations.revokeUser("alice");
+        assertThat(revocations.isRevoked(token("alice", "before", changed.minusSeconds(60)))).isTrue();
+        assertThat(revocations.isRevoked(token("alice", "after", changed.plusSeconds(1)))).isFalse();
+    }
+
+    @Test
+    void expiredRevocationsAreDeletedAndLeaveTheFilter() throws InterruptedException {
+        // Revoked on another instance: only the rebuild puts the key in the filter.
+        when(repository.findActiveKeys(any())).thenReturn(List.of("jti:token-1"));
+        when(repository.existsById("jti:token-1")).thenReturn(true);
+        revocations.start();
+        verify(repository, timeout(2000)).findActiveKeys(any());
+        assertThat(revocations.isRevoked(token("alice", "token-1"))).isTrue();
+
+        // The revocation has expired and the next rebuild deletes it.
+        when(repository.findActiveKeys(any())).thenReturn(List.of());
+        when(repository.existsById("jti:token-1")).thenReturn(false);
+        verify(repository, timeout(2000).atLeast(2)).deleteExpired(any());
+        for (int i = 0; i < 100 && checks("filter_miss") == 0; i++) {
+            revocations.isRevoked(token("alice", "token-1"));
+            Thread.sleep(20);
+        }
+        assertThat(checks("filter_miss")).isPositive();
+        assertThat(meterRegistry.get("jwt.revocations.active").gauge().value()).isZero();
+    }
+
+    @Test
+    void rebuildsWaitForTheMigrations() {
+        migrations = Health.outOfService().build();
+        revocations.start();
+        verify(repository, after(300).never()).findActiveKeys(any());
+
+        migrations = Health.up().build();
+        verify(repository, timeout(3000)).deleteExpired(any());
+        verify(repository, timeout(2000)).findActiveKeys(any());
+        verify(repository, never()).existsById(anyString());
+    }
+
+    private double checks(String result) {
+        return meterRegistry.get("jwt.revocation.checks").tag("result", result).counter().count();
+    }
+
+    private static VerifiedToken token(String username, String tokenId) {
+        return token(username, tokenId, Instant.now().minusSeconds(60));
+    }
+
+    private static VerifiedToken token(String username, String tokenId, Instant issuedAt) {
+        return new VerifiedToken(username, tokenId, issuedAt.toEpochMilli(), issuedAt.plus(Duration.ofHours(1)).toEpochMilli());
+    }
+}
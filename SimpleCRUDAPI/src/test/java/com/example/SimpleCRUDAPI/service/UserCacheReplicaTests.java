@@ -0,0 +1,76 @@
+package com.example.SimpleCRUDAPI.service;
+
+import com.example.SimpleCRUDAPI.entity.User;
+import com.example.SimpleCRUDAPI.repository.UserRepository;
+import com.example.SimpleCRUDAPI.util.ReadReplicas;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The application with a read replica that never catches up: a second H2
+// database holding a copy of one user as it was before an update.
+@SpringBootTest(properties = {
+        "datasource.replicas.urls=" + UserCacheReplicaTests.REPLICA_URL,
+        "datasource.replicas.health-check-interval-ms=100",
+        "datasource.replicas.sticky-window-ms=50"})
+@ActiveProfiles("test")
+class UserCacheReplicaTests {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:user-cache-replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    // Created before the application starts, which already reads the revocation list.
+    static {
+        replica.execute("create table users (id bigint primary key, username varchar(255), password varchar(255), version bigint)");
+        replica.execute("create table revoked_tokens (revocation_key varchar(300) primary key, revoked_at timestamp with time zone, expires_at timestamp with time zone)");
+    }
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReadReplicas readReplicas;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Test
+    void cacheMissesAfterAnUpdateAreLoadedFromThePrimary() throws InterruptedException {
+        for (int i = 0; i < 100 && readReplicas.pick() == null; i++) {
+            Thread.sleep(20);
+        }
+        assertThat(readReplicas.pick()).isNotNull();
+
+        long id = 42_000_001L;
+        JdbcTemplate primary = new JdbcTemplate(primaryDataSource);
+        for (JdbcTemplate database : new JdbcTemplate[] {primary, replica}) {
+            database.update("insert into users (id, username, password, version) values (?, 'old-name', 'old-hash', 0)", id);
+        }
+        assertThat(userCache.findById(id).getPassword()).isEqualTo("old-hash");
+
+        User update = new User();
+        update.setUsername("new-name");
+        update.setPassword("new-hash");
+        assertThat(userService.updateUser(id, update)).isTrue();
+        // Past the sticky window, reads of this thread are sent to the replica again, which still has the old row.
+        Thread.sleep(100);
+        assertThat(userRepository.findById(id)).get().extracting(User::getPassword).isEqualTo("old-hash");
+
+        assertThat(userCache.findById(id).getPassword()).isEqualTo("new-hash");
+        assertThat(userCache.findByUsername("new-name").getId()).isEqualTo(id);
+        assertThat(userCache.findByUsername("old-name")).isNull();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.SimpleCRUDAPI.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The upper bound of the username range scanned by a prefix search.
+class UserServiceTests {
+
+    private static final String MAX = Character.toString(Character.MAX_CODE_POINT);
+
+    @Test
+    void theLastCodePointIsIncremented() {
+        assertThat(UserService.prefixUpperBound("ab")).isEqualTo("ac");
+        // U+1F600 is a surrogate pair in Java; the code point is incremented, not the low surrogate.
+        assertThat(UserService.prefixUpperBound("a\uD83D\uDE00")).isEqualTo("a\uD83D\uDE01");
+    }
+
+    @Test
+    void theSurrogateRangeIsSkipped() {
+        assertThat(UserService.prefixUpperBound("a\uD7FF")).isEqualTo("a\uE000");
+    }
+
+    @Test
+    void aMaximalLastCodePointCarriesIntoThePreviousOne() {
+        assertThat(UserService.prefixUpperBound("ab" + MAX)).isEqualTo("ac");
+        assertThat(UserService.prefixUpperBound("a" + MAX + MAX)).isEqualTo("b");
+    }
+
+    @Test
+    void aPrefixWithNothingToIncrementGetsTheLargestCodePointAppended() {
+        assertThat(UserService.prefixUpperBound(MAX)).isEqualTo(MAX + MAX);
+        assertThat(UserService.prefixUpperBound("")).isEqualTo(MAX);
+    }
+
+    @Test
+    void everyStringWithThePrefixSortsBelowTheBound() {
+        for (String prefix : new String[] {"ab", "a\uD7FF", "a" + MAX, "\uD83D\uDE00"}) {
+            String bound = UserService.prefixUpperBound(prefix);
+            for (String suffix : new String[] {"", "a", MAX, MAX + MAX}) {
+                assertThat(compareCodePoints(prefix + suffix, bound)).isNegative();
+            }
+        }
+    }
+
+    // Code point order, the order of the "C" collation over UTF-8.
+    private static int compareCodePoints(String a, String b) {
+        return Arrays.compare(a.codePoints().toArray(), b.codePoints().toArray());
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.SimpleCRUDAPI.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTests {
+
+    @Test
+    void everyAddedKeyIsFound() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.add("jti:" + i));
+
+        assertThat(IntStream.range(0, 10_000)).allMatch(i -> filter.mightContain("jti:" + i));
+    }
+
+    @Test
+    void falsePositivesStayNearTheRateTheFilterIsSizedFor() {
+        for (double rate : new double[] {0.01, 0.001}) {
+            BloomFilter filter = new BloomFilter(10_000, rate);
+            IntStream.range(0, 10_000).forEach(i -> filter.add("user:" + i));
+
+            long falsePositives = IntStream.range(0, 100_000).filter(i -> filter.mightContain("jti:" + i)).count();
+            assertThat(falsePositives / 100_000.0).as("false positive rate sized for %s", rate).isLessThan(2 * rate);
+        }
+    }
+
+    // A filter sized for fewer keys than it holds still has no false negatives, only more false positives.
+    @Test
+    void anUndersizedFilterStillFindsEveryKey() {
+        BloomFilter filter = new BloomFilter(0, 0.01);
+        IntStream.range(0, 1_000).forEach(i -> filter.add("jti:" + i));
+
+        assertThat(IntStream.range(0, 1_000)).allMatch(i -> filter.mightContain("jti:" + i));
+        assertThat(new BloomFilter(0, 0.01).mightContain("jti:0")).isFalse();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.SimpleCRUDAPI.util;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtTokenCacheTests {
+
+    private static final String SECRET = "a-test-secret-that-is-long-enough-for-hmac-sha256";
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private JwtUtil jwtUtil;
+
+    private JwtTokenCache tokenCache;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        jwtUtil.init();
+        tokenCache = new JwtTokenCache(jwtUtil, meterRegistry, 1000);
+    }
+
+    @Test
+    void aValidTokenIsParsedOnceAndThenServedFromTheCache() {
+        String token = jwtUtil.createToken("alice");
+
+        assertThat(tokenCache.validateToken(token)).isEqualTo("alice");
+        assertThat(tokenCache.validateToken(token)).isEqualTo("alice");
+        assertThat(validations("valid")).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "jwt.tokens").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void aCachedTokenIsRejectedOnceItHasExpired() throws InterruptedException {
+        // exp has a resolution of one second, so expire at the start of the second after next.
+        long expiresAt = (System.currentTimeMillis() / 1000 + 2) * 1000;
+        String token = Jwts.builder()
+                .setSubject("alice")
+                .setExpiration(new Date(expiresAt))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .compact();
+        assertThat(tokenCache.validateToken(token)).isEqualTo("alice");
+
+        Thread.sleep(expiresAt - System.currentTimeMillis() + 100);
+        assertThat(tokenCache.validateToken(token)).isNull();
+        assertThat(validations("valid")).isEqualTo(1);
+        assertThat(validations("expired")).isEqualTo(1);
+    }
+
+    @Test
+    void aTamperedSignatureIsCountedAndNeverCached() {
+        String token = jwtUtil.createToken("alice");
+        assertThat(tokenCache.validateToken(token)).isEqualTo("alice");
+
+        // Change a character in the middle of the signature, the last segment of the token.
+        int position = token.length() - 10;
+        char replacement = token.charAt(position) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, position) + replacement + token.substring(position + 1);
+
+        assertThat(tokenCache.validateToken(tampered)).isNull();
+        assertThat(tokenCache.validateToken(tampered)).isNull();
+        assertThat(validations("bad_signature")).isEqualTo(2);
+        // The genuine token is still cached under its own digest.
+        assertThat(tokenCache.validateToken(token)).isEqualTo("alice");
+        assertThat(validations("valid")).isEqualTo(1);
+    }
+
+    private double validations(String outcome) {
+        return meterRegistry.get("jwt.validations").tag("outcome", outcome).counter().count();
+    }
+}
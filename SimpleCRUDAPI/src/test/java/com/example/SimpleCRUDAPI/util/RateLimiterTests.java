@@ -0,0 +1,26 @@
+package com.example.SimpleCRUDAPI.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTests {
+
+    // One token a minute and a bucket of three.
+    private final RateLimiter rateLimiter = new RateLimiter("login", "ip", 1, 3, 1000, new SimpleMeterRegistry());
+
+    @Test
+    void aNewBucketAllowsABurstThenAsksToWaitForTheNextToken() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(rateLimiter.tryAcquire("10.0.0.1")).isZero();
+        }
+        long wait = rateLimiter.tryAcquire("10.0.0.1");
+        assertThat(wait).isPositive().isLessThanOrEqualTo(TimeUnit.MINUTES.toNanos(1));
+
+        // Buckets are per key.
+        assertThat(rateLimiter.tryAcquire("10.0.0.2")).isZero();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.SimpleCRUDAPI.util;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Routes transactions between two H2 databases, a primary and a replica. Each
+// database has a one-row "node" table holding its own name, so every query shows
+// which database served it. The DataSource is wired as in ReadReplicaConfig.
+class ReadWriteRoutingDataSourceTests {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private HikariDataSource primary;
+
+    private HikariDataSource replica;
+
+    private ReadReplicas replicas;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate readWrite;
+
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        primary = database("primary");
+        replica = database("replica");
+        replicas = new ReadReplicas(List.of(replica), Duration.ofMillis(100), meterRegistry, false);
+        // Replicas start unhealthy until their first health check.
+        for (int i = 0; i < 100 && replicas.pick() == null; i++) {
+            Thread.sleep(20);
+        }
+        assertThat(replicas.pick()).isSameAs(replica);
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replicas,
+                Duration.ofSeconds(30), meterRegistry));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        replicas.close();
+        primary.close();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        authenticate("reader");
+        assertThat(nodeIn(readOnly)).isEqualTo("replica");
+        assertThat(nodeIn(readOnly)).isEqualTo("replica");
+    }
+
+    @Test
+    void writesGoToThePrimary() {
+        authenticate("writer");
+        String node = readWrite.execute(status -> {
+            jdbcTemplate.update("update node set writes = writes + 1");
+            return node();
+        });
+        assertThat(node).isEqualTo("primary");
+        assertThat(jdbcTemplate.queryForObject("select writes from node", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void readsAfterAWriteStayOnThePrimaryForTheSameUserOnly() {
+        authenticate("writer");
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("update node set writes = writes + 1"));
+        assertThat(nodeIn(readOnly)).isEqualTo("primary");
+
+        authenticate("someone-else");
+        assertThat(nodeIn(readOnly)).isEqualTo("replica");
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhileTheReplicaIsDown() {
+        authenticate("reader");
+        assertThat(nodeIn(readOnly)).isEqualTo("replica");
+
+        // A closed pool refuses connections like an unreachable replica does.
+        replica.close();
+        assertThat(nodeIn(readOnly)).isEqualTo("primary");
+        assertThat(replicas.pick()).isNull();
+        assertThat(nodeIn(readOnly)).isEqualTo("primary");
+        assertThat(meterRegistry.get("datasource.routing").tag("route", "fallback").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("datasource.replica.healthy").gauge().value()).isZero();
+    }
+
+    private String nodeIn(TransactionTemplate transaction) {
+        return transaction.execute(status -> node());
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    private static HikariDataSource database(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + "-" + UUID.randomUUID());
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table node (name varchar(20), writes int)");
+        jdbc.update("insert into node values (?, 0)", name);
+        return dataSource;
+    }
+}
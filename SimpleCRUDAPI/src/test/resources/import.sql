@@ -0,0 +1,2 @@
+-- Run by Hibernate after it has created the test schema. The change feed sequence is not mapped by any entity.
+CREATE SEQUENCE IF NOT EXISTS user_changes_seq;